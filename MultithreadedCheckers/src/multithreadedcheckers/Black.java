@@ -29,22 +29,7 @@ public class Black {
     public static Vector<Move> ObtainForcedMovesForBlack(int r, int c, Board board) 
     {        
         Vector<Move> furtherCaptures = new Vector<Move>();        
-        
-        if (board.cell[r][c].equals(CellEntry.black) || board.cell[r][c].equals(CellEntry.blackKing))                
-        {
-            if (ForwardLeftCaptureForBlack(r,c,board)!=null)
-                furtherCaptures.add(ForwardLeftCaptureForBlack(r,c,board));
-            if (ForwardRightCaptureForBlack(r,c,board)!=null)
-                furtherCaptures.add(ForwardRightCaptureForBlack(r,c,board));
-        }        
-        
-        if(board.cell[r][c].equals(CellEntry.blackKing))
-        {
-            if (BackwardLeftCaptureForBlack(r,c,board)!=null)
-                furtherCaptures.add(BackwardLeftCaptureForBlack(r,c,board));
-            if (BackwardRightCaptureForBlack(r,c,board)!=null)
-                furtherCaptures.add(BackwardRightCaptureForBlack(r,c,board));
-        }
+        AddCapturesForBlack(r, c, board, furtherCaptures);
         
         return furtherCaptures;
     }
@@ -53,54 +38,44 @@ public class Black {
     {        
         Vector<Move> forcedMovesForBlack = new Vector<Move>();
         
-        // Scan across the board
-        for(int r = 0; r<Board.rows; r++)
-        {            
-            // Check only valid cols
-            int c = (r%2==0)?0:1;
-            for(; c<Board.cols; c+=2)
-            {       
-                assert(!board.cell[r][c].equals(CellEntry.inValid));
-                
-                // Forward Capture
-                if(
-                        board.cell[r][c].equals(CellEntry.black) || 
-                        board.cell[r][c].equals(CellEntry.blackKing)
-                  )
-                {       
-                    // Boundary Condition for forward capture for black
-                    if (r>=2)
-                    {    
-                        // Forward Left Capture for black
-                        if (ForwardLeftCaptureForBlack(r,c, board)!=null)
-                            forcedMovesForBlack.add(ForwardLeftCaptureForBlack(r,c, board));                        
-                        
-                        // Forward Right Capture for black
-                        if (ForwardRightCaptureForBlack(r,c, board)!=null)
-                            forcedMovesForBlack.add(ForwardRightCaptureForBlack(r,c, board));
-                    }                   
-                }
-                // Backward Capture for Black King
-                if(board.cell[r][c].equals(CellEntry.blackKing))
-                {
-                    // Boundary Condition for backward capture
-                    if (r<Board.rows-2)
-                    {          
-                        // Backward Left Capture for black king
-                        if (BackwardLeftCaptureForBlack(r,c,board)!=null)
-                            forcedMovesForBlack.add(BackwardLeftCaptureForBlack(r,c, board));
-                        
-                        // Backward Right Capture for black king
-                        if (BackwardRightCaptureForBlack(r,c,board)!=null)
-                            forcedMovesForBlack.add(BackwardRightCaptureForBlack(r,c,board));                        
-                    }
-                }
-            }    
+        // Scan only the squares holding a black piece
+        int pieces = board.black;
+        while(pieces != 0)
+        {
+            int square = Integer.numberOfTrailingZeros(pieces);
+            pieces &= pieces-1;
+            
+            AddCapturesForBlack(Board.row(square), Board.col(square), board, forcedMovesForBlack);
         }
         
         return forcedMovesForBlack;
     }
     
+    // Adds the captures available to the black piece at (r, c), if any.
+    private static void AddCapturesForBlack(int r, int c, Board board, Vector<Move> captures)
+    {
+        int bit = 1 << Board.square(r, c);
+        if ((board.black & bit) == 0)
+            return;
+        
+        Move move;
+        
+        // Forward Capture
+        if ((move = ForwardLeftCaptureForBlack(r,c,board))!=null)
+            captures.add(move);
+        if ((move = ForwardRightCaptureForBlack(r,c,board))!=null)
+            captures.add(move);
+        
+        // Backward Capture for Black King
+        if ((board.kings & bit) != 0)
+        {
+            if ((move = BackwardLeftCaptureForBlack(r,c,board))!=null)
+                captures.add(move);
+            if ((move = BackwardRightCaptureForBlack(r,c,board))!=null)
+                captures.add(move);
+        }
+    }
+    
     /**
      * Returns a vector of all possible moves which Black can make at the state of the game given by board.
      * 
@@ -112,214 +87,133 @@ public class Black {
     public static Vector<Move> CalculateAllNonForcedMovesForBlack(Board board){
         Vector<Move> allNonForcedMovesForBlack = new Vector<Move>();
 
-        // Scan across the board
-        for(int r = 0; r<Board.rows; r++)
-        {            
-            // Check only valid cols
-            int c = (r%2==0)?0:1;
-            for(; c<Board.cols; c+=2)
-            {       
-                assert(!board.cell[r][c].equals(CellEntry.inValid));
-                
-                // Forward Move for normal black piece.
-                if( board.cell[r][c].equals(CellEntry.black) ){
+        // Scan only the squares holding a black piece
+        int pieces = board.black;
+        while(pieces != 0)
+        {
+            int square = Integer.numberOfTrailingZeros(pieces);
+            pieces &= pieces-1;
+            
+            int r = Board.row(square);
+            int c = Board.col(square);
+            boolean king = (board.kings & (1<<square)) != 0;
+            
+            // Forward Move for normal black piece.
+            if( !king ){
 
-                    Move move = null;
-                    move = ForwardLeftCaptureForBlack(r, c, board);
-                    assert(move == null);                    
-                    move = ForwardRightCaptureForBlack(r, c, board);
-                    assert(move == null);
-                    
-                    move = ForwardLeftForBlack(r, c, board);
-                    if(move!=null){
-                        allNonForcedMovesForBlack.add(move);   
-                    }
-                    
-                    move = ForwardRightForBlack(r, c, board);
-                    if(move!=null){
-                        allNonForcedMovesForBlack.add(move);
-                    }
+                Move move = null;
+                move = ForwardLeftCaptureForBlack(r, c, board);
+                assert(move == null);                    
+                move = ForwardRightCaptureForBlack(r, c, board);
+                assert(move == null);
+                
+                move = ForwardLeftForBlack(r, c, board);
+                if(move!=null){
+                    allNonForcedMovesForBlack.add(move);   
                 }
                 
-                //Forward and Backward Move for black king piece.
-                if(board.cell[r][c] == CellEntry.blackKing){                    
-                    Move move = null;
-                    move = ForwardLeftCaptureForBlack(r, c, board);
-                    assert(move == null);                    
-                    move = ForwardRightCaptureForBlack(r, c, board);
-                    assert(move == null);
-
-                    move = BackwardLeftCaptureForBlack(r, c, board);
-                    assert(move == null);
-                    move = BackwardRightCaptureForBlack(r, c, board);
-                    assert(move == null);
-                    
-                    move = ForwardLeftForBlack(r, c, board);
-                    if(move!=null){
-                        allNonForcedMovesForBlack.add(move);
-                    }
-                    
-                    move = ForwardRightForBlack(r, c, board);
-                    if(move!=null){
-                        allNonForcedMovesForBlack.add(move);
-                    }
-                    
-                    move = BackwardLeftForBlack(r, c, board);
-                    if(move!=null){
-                        allNonForcedMovesForBlack.add(move);
-                    }
-                    
-                    move = BackwardRightForBlack(r, c, board);
-                    if(move!=null){
-                        allNonForcedMovesForBlack.add(move);
-                    }
-                    
+                move = ForwardRightForBlack(r, c, board);
+                if(move!=null){
+                    allNonForcedMovesForBlack.add(move);
                 }
+            }
+            
+            //Forward and Backward Move for black king piece.
+            if(king){                    
+                Move move = null;
+                move = ForwardLeftCaptureForBlack(r, c, board);
+                assert(move == null);                    
+                move = ForwardRightCaptureForBlack(r, c, board);
+                assert(move == null);
 
+                move = BackwardLeftCaptureForBlack(r, c, board);
+                assert(move == null);
+                move = BackwardRightCaptureForBlack(r, c, board);
+                assert(move == null);
+                
+                move = ForwardLeftForBlack(r, c, board);
+                if(move!=null){
+                    allNonForcedMovesForBlack.add(move);
+                }
+                
+                move = ForwardRightForBlack(r, c, board);
+                if(move!=null){
+                    allNonForcedMovesForBlack.add(move);
+                }
+                
+                move = BackwardLeftForBlack(r, c, board);
+                if(move!=null){
+                    allNonForcedMovesForBlack.add(move);
+                }
+                
+                move = BackwardRightForBlack(r, c, board);
+                if(move!=null){
+                    allNonForcedMovesForBlack.add(move);
+                }
                 
             }
-        }
 
+            
+        }
+        
         return allNonForcedMovesForBlack;
     }
 
-    
-    
-    
-    
     private static Move ForwardLeftForBlack(int r, int c, Board board){
-        Move forwardLeft = null;
-        
-        assert(board.cell[r][c] == CellEntry.black || board.cell[r][c] == CellEntry.blackKing);
-        
-        if( r>=1 && c<Board.cols-1 &&
-                board.cell[r-1][c+1] == CellEntry.empty
-                
-          )
-        {
-            forwardLeft = new Move(r,c,r-1, c+1);
-        }
-        return forwardLeft;
+        return StepForBlack(r, c, Board.DOWN_RIGHT, board);
     }
     
     // Forward Left Capture for Black
-    private static Move ForwardLeftCaptureForBlack(int r, int c, Board board)
-    {        
-        Move forwardLeftCapture = null;
-        
-        if(r>=2 && c<Board.cols-2 &&
-                (
-                board.cell[r-1][c+1].equals(CellEntry.white)
-                || board.cell[r-1][c+1].equals(CellEntry.whiteKing)
-                )
-                && board.cell[r-2][c+2].equals(CellEntry.empty)
-                )
-        {
-             forwardLeftCapture = new Move(r,c,r-2,c+2);
-             //System.out.println("Forward Left Capture for Black");
-        }        
-        
-        return forwardLeftCapture;
+    private static Move ForwardLeftCaptureForBlack(int r, int c, Board board){
+        return CaptureForBlack(r, c, Board.DOWN_RIGHT, board);
     }
     
-    
-    
-    //Forward Right for Black
     private static Move ForwardRightForBlack(int r, int c, Board board){
-        Move forwardRight = null;
-        if( r>=1 && c>=1 &&
-                board.cell[r-1][c-1] == CellEntry.empty
-          )
-        {
-            forwardRight = new Move(r,c, r-1, c-1);
-        }
-        return forwardRight;
+        return StepForBlack(r, c, Board.DOWN_LEFT, board);
     }
     
-    // Forward Right Capture for White
+    // Forward Right Capture for Black
     private static Move ForwardRightCaptureForBlack(int r, int c, Board board){
-        
-        Move forwardRightCapture = null;
-        
-        if(r>=2 && c>=2 && (
-                board.cell[r-1][c-1].equals(CellEntry.white)
-                || board.cell[r-1][c-1].equals(CellEntry.whiteKing)
-                )
-                && board.cell[r-2][c-2].equals(CellEntry.empty)
-                )
-        {
-            forwardRightCapture = new Move(r,c,r-2,c-2);
-            //System.out.println("Forward Right Capture for Black");
-        }
-        
-        return forwardRightCapture;
+        return CaptureForBlack(r, c, Board.DOWN_LEFT, board);
     }
     
     private static Move BackwardLeftForBlack(int r, int c, Board board){
-        Move backwardLeft = null;
-        
-        assert(board.cell[r][c].equals(CellEntry.blackKing));
-        if(r<Board.rows-1 && c<Board.cols-1 &&
-           board.cell[r+1][c+1] == CellEntry.empty
-          )
-        {
-            backwardLeft = new Move(r,c, r+1, c+1);
-        }
-        
-        return backwardLeft;
+        return StepForBlack(r, c, Board.UP_RIGHT, board);
     }
     
-     // Backward Left Capture for Black
+    // Backward Left Capture for Black
     private static Move BackwardLeftCaptureForBlack(int r, int c, Board board){
-        
-        Move backwardLeftCapture = null;
-        
-        if(r<Board.rows-2 && c<Board.cols-2 && (
-                board.cell[r+1][c+1].equals(CellEntry.white)
-                || board.cell[r+1][c+1].equals(CellEntry.whiteKing)
-                )
-                && board.cell[r+2][c+2].equals(CellEntry.empty)
-                )
-        {
-             backwardLeftCapture = new Move(r,c,r+2,c+2);
-             //System.out.println("Backward Left Capture for Black");
-        }
-        
-        return backwardLeftCapture;
+        return CaptureForBlack(r, c, Board.UP_RIGHT, board);
     }
     
-    
     private static Move BackwardRightForBlack(int r, int c, Board board){
-        Move backwardRight = null;
-        
-        assert(board.cell[r][c].equals(CellEntry.blackKing));
-        
-        if(r<Board.rows-1 && c>=1 &&
-           board.cell[r+1][c-1].equals(CellEntry.empty) 
-          )
-        {
-            backwardRight = new Move(r,c, r+1, c-1);
-        }
-        return backwardRight;
+        return StepForBlack(r, c, Board.UP_LEFT, board);
     }
     
-    
     // Backward Right Capture for Black
     private static Move BackwardRightCaptureForBlack(int r, int c, Board board){
+        return CaptureForBlack(r, c, Board.UP_LEFT, board);
+    }
+    
+    // Unit step from (r, c) in direction dir, null if the target is off the board or occupied.
+    private static Move StepForBlack(int r, int c, int dir, Board board){
+        int to = Board.neighbour[dir][Board.square(r, c)];
         
-        Move backwardRightCapture = null;
-        
-        if(r<Board.rows-2 && c>=2 && (
-                board.cell[r+1][c-1].equals(CellEntry.white) ||
-                board.cell[r+1][c-1].equals(CellEntry.whiteKing)
-                )
-                && board.cell[r+2][c-2].equals(CellEntry.empty)
-                )
-        {
-            backwardRightCapture = new Move(r,c,r+2,c-2);
-            //System.out.println("Backward Right Capture for Black");
+        if(to < 0 || (board.emptySquares() & (1<<to)) == 0){
+            return null;
         }
+        return new Move(r, c, Board.row(to), Board.col(to));
+    }
+    
+    // Jump from (r, c) in direction dir, null unless it goes over a white piece onto an empty square.
+    private static Move CaptureForBlack(int r, int c, int dir, Board board){
+        int from = Board.square(r, c);
+        int to = Board.jump[dir][from];
         
-        return backwardRightCapture;
+        if(to < 0 || (board.white & (1<<Board.neighbour[dir][from])) == 0
+                || (board.emptySquares() & (1<<to)) == 0){
+            return null;
+        }
+        return new Move(r, c, Board.row(to), Board.col(to));
     }
 }
\ No newline at end of file
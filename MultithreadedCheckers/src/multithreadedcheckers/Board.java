@@ -1,4 +1,6 @@
 package multithreadedcheckers;
+import java.util.Arrays;
+import java.util.Random;
 import java.util.Vector;
 
 public class Board {
@@ -8,44 +10,257 @@ public class Board {
     
     static final int rows = 8;
     static final int cols = 8;
-    CellEntry cell[][];
+    static final int squares = 32;
+    
+    // One bit per playable square, bit index given by square(r, c).
+    // kings holds the kings of both colours.
+    int white;
+    int black;
+    int kings;
+    
+    // Running totals of Oracle.PIECE_VALUE and Oracle.PIECE_SQUARE over the pieces on the board,
+    // updated with every piece put on or taken off the board.
+    int materialScore;
+    int positionScore;
+    
+    // Zobrist key of the pieces on the board, updated with every piece put on or taken off.
+    // The side to move is folded in by hashKey().
+    long hash;
+    
+    // Kinds of pieces, as used to index the Oracle tables.
+    static final int WHITE_MAN = 0;
+    static final int WHITE_KING = 1;
+    static final int BLACK_MAN = 2;
+    static final int BLACK_KING = 3;
+    
+    // Diagonal directions as seen on the displayed board: up is towards row 7.
+    static final int UP_LEFT = 0;
+    static final int UP_RIGHT = 1;
+    static final int DOWN_LEFT = 2;
+    static final int DOWN_RIGHT = 3;
+    
+    // neighbour[dir][square] is the adjacent square in direction dir and
+    // jump[dir][square] the square landed on when jumping over it, -1 when off the board.
+    static final int[][] neighbour = new int[4][squares];
+    static final int[][] jump = new int[4][squares];
+    
+    static {
+        int[] rowStep = {1, 1, -1, -1};
+        int[] colStep = {-1, 1, -1, 1};
+        
+        for(int dir = 0; dir<4; dir++){
+            for(int s = 0; s<squares; s++){
+                int r = row(s);
+                int c = col(s);
+                neighbour[dir][s] = onBoard(r+rowStep[dir], c+colStep[dir]) ? square(r+rowStep[dir], c+colStep[dir]) : -1;
+                jump[dir][s] = onBoard(r+2*rowStep[dir], c+2*colStep[dir]) ? square(r+2*rowStep[dir], c+2*colStep[dir]) : -1;
+            }
+        }
+    }
+    
+    // zobrist[piece][square] is xor-ed into the hash for each piece on the board.
+    static final long[][] zobrist = new long[4][squares];
+    static final long zobristBlackToMove;
+    
+    static {
+        // Fixed seed, so that keys are the same from one run to the next.
+        Random random = new Random(0x636865636b657273L);
+        for(int piece = 0; piece<4; piece++){
+            for(int s = 0; s<squares; s++){
+                zobrist[piece][s] = random.nextLong();
+            }
+        }
+        zobristBlackToMove = random.nextLong();
+    }
+    
+    // States saved by the make methods so that unmakeMove() can restore them.
+    private static final int SAVED_FIELDS = 7;
+    private int[] savedStates;
+    private long[] savedHashes;
+    private int savedCount;
     
     Board(){
         this.blackPieces = this.whitePieces = 12;        
         
-        this.cell = new CellEntry[][]{                        
-            {CellEntry.white, CellEntry.inValid, CellEntry.white, CellEntry.inValid, CellEntry.white, CellEntry.inValid, CellEntry.white, CellEntry.inValid},
-            {CellEntry.inValid, CellEntry.white, CellEntry.inValid, CellEntry.white, CellEntry.inValid, CellEntry.white, CellEntry.inValid, CellEntry.white},
-            {CellEntry.white, CellEntry.inValid, CellEntry.white, CellEntry.inValid, CellEntry.white, CellEntry.inValid, CellEntry.white, CellEntry.inValid},
-            {CellEntry.inValid, CellEntry.empty, CellEntry.inValid, CellEntry.empty, CellEntry.inValid, CellEntry.empty, CellEntry.inValid, CellEntry.empty},
-            {CellEntry.empty, CellEntry.inValid, CellEntry.empty, CellEntry.inValid, CellEntry.empty, CellEntry.inValid, CellEntry.empty, CellEntry.inValid},            
-            {CellEntry.inValid, CellEntry.black, CellEntry.inValid, CellEntry.black, CellEntry.inValid, CellEntry.black, CellEntry.inValid, CellEntry.black},
-            {CellEntry.black,CellEntry.inValid, CellEntry.black, CellEntry.inValid, CellEntry.black, CellEntry.inValid, CellEntry.black, CellEntry.inValid},
-            {CellEntry.inValid, CellEntry.black, CellEntry.inValid, CellEntry.black, CellEntry.inValid, CellEntry.black, CellEntry.inValid, CellEntry.black}
-        };        
+        // Rows 0-2 are white, rows 5-7 are black.
+        this.white = 0x00000FFF;
+        this.black = 0xFFF00000;
+        this.kings = 0;
+        this.initScores();
     }
     
     Board(CellEntry[][] board){        
-        this.blackPieces = this.whitePieces = 12;        
+        for(int r = 0; r<rows; r++){
+            // Only the valid cols carry a piece
+            int c = (r%2==0)?0:1;
+            for(; c<cols; c+=2){
+                int bit = 1 << square(r, c);
+                switch(board[r][c]){
+                    case white:
+                        this.white |= bit;
+                        break;
+                    case whiteKing:
+                        this.white |= bit;
+                        this.kings |= bit;
+                        break;
+                    case black:
+                        this.black |= bit;
+                        break;
+                    case blackKing:
+                        this.black |= bit;
+                        this.kings |= bit;
+                        break;
+                }
+            }
+        }
+        
+        this.whitePieces = Integer.bitCount(this.white);
+        this.blackPieces = Integer.bitCount(this.black);
+        this.initScores();
+    }
+    
+    private Board(int white, int black, int kings){
+        this.white = white;
+        this.black = black;
+        this.kings = kings;
+    }
+    
+    /**
+     * Index (0-31) of the playable square at (r, c).
+     */
+    static int square(int r, int c){
+        return (r<<2) | (c>>1);
+    }
+    
+    private static boolean onBoard(int r, int c){
+        return r>=0 && r<rows && c>=0 && c<cols;
+    }
+    
+    static int row(int square){
+        return square>>2;
+    }
+    
+    static int col(int square){
+        return ((square&3)<<1) | ((square>>2)&1);
+    }
+    
+    /**
+     * Returns the content of the cell at (r, c), inValid for the unplayable squares.
+     */
+    public CellEntry getCell(int r, int c){
+        if(((r+c)&1) != 0){
+            return CellEntry.inValid;
+        }
+        
+        int bit = 1 << square(r, c);
+        if((this.white & bit) != 0){
+            return (this.kings & bit) != 0 ? CellEntry.whiteKing : CellEntry.white;
+        }
+        if((this.black & bit) != 0){
+            return (this.kings & bit) != 0 ? CellEntry.blackKing : CellEntry.black;
+        }
+        return CellEntry.empty;
+    }
+    
+    /**
+     * Kind of piece on the square (WHITE_MAN ... BLACK_KING), -1 when it is empty.
+     */
+    int pieceAt(int square){
+        int bit = 1 << square;
+        int king = (this.kings & bit) != 0 ? 1 : 0;
         
-        this.cell = new CellEntry[rows][cols];
-        for(int i = 0; i<rows; i++){            
-            System.arraycopy(board[i], 0, this.cell[i], 0, cols);
+        if((this.white & bit) != 0){
+            return WHITE_MAN + king;
         }
+        if((this.black & bit) != 0){
+            return BLACK_MAN + king;
+        }
+        return -1;
+    }
+    
+    private void putPiece(int piece, int square){
+        int bit = 1 << square;
+        
+        if(piece <= WHITE_KING){
+            this.white |= bit;
+        }else{
+            this.black |= bit;
+        }
+        if(piece == WHITE_KING || piece == BLACK_KING){
+            this.kings |= bit;
+        }
+        
+        this.materialScore += Oracle.PIECE_VALUE[piece];
+        this.positionScore += Oracle.PIECE_SQUARE[piece][square];
+        this.hash ^= zobrist[piece][square];
+    }
+    
+    private void removePiece(int piece, int square){
+        int bit = ~(1 << square);
+        
+        this.white &= bit;
+        this.black &= bit;
+        this.kings &= bit;
+        
+        this.materialScore -= Oracle.PIECE_VALUE[piece];
+        this.positionScore -= Oracle.PIECE_SQUARE[piece][square];
+        this.hash ^= zobrist[piece][square];
+    }
+    
+    private static int crowned(int piece){
+        return piece | 1;
+    }
+    
+    private void initScores(){
+        this.materialScore = Oracle.WhiteBlackPiecesDifferencePoints(this);
+        this.positionScore = Oracle.BoardPositionPoints(this);
+        this.hash = this.computeHash();
+    }
+    
+    /**
+     * Zobrist key of the position with the given player to move.
+     */
+    public long hashKey(Player toMove){
+        return (toMove == Player.black) ? this.hash ^ zobristBlackToMove : this.hash;
+    }
+    
+    /**
+     * Recomputes the hash from scratch, to check the incrementally updated one.
+     */
+    long computeHash(){
+        long key = 0;
+        for(int s = 0; s<squares; s++){
+            int piece = this.pieceAt(s);
+            if(piece >= 0){
+                key ^= zobrist[piece][s];
+            }
+        }
+        return key;
+    }
+    
+    /**
+     * Mask of the playable squares holding no piece.
+     */
+    public int emptySquares(){
+        return ~(this.white | this.black);
     }
     
     public void MakeMove(int r1, int c1, int r2, int c2) 
     {        
-        this.cell[r2][c2] = this.cell[r1][c1];
-        this.cell[r1][c1] = CellEntry.empty;
+        int from = square(r1, c1);
+        int to = square(r2, c2);
+        int piece = this.pieceAt(from);
         
-        // Promote To King
-        if(this.cell[r2][c2].equals(CellEntry.white) && r2==rows-1){
-            this.cell[r2][c2] = CellEntry.whiteKing;
+        if(piece < 0){
+            return;
         }
-        else if(this.cell[r2][c2].equals(CellEntry.black) && r2==0){
-            this.cell[r2][c2] = CellEntry.blackKing;
+        this.removePiece(piece, from);
+        
+        // Promote To King
+        if((piece == WHITE_MAN && r2==rows-1) || (piece == BLACK_MAN && r2==0)){
+            piece = crowned(piece);
         }
+        this.putPiece(piece, to);
     }
     
     // Capture Black Piece and Move
@@ -54,32 +269,17 @@ public class Board {
         // Check Valid Capture
         assert(Math.abs(r2-r1)==2 && Math.abs(c2-c1)==2);
         
-        // Obtain the capture direction
-        MoveDir dir = r2>r1?(c2>c1?MoveDir.forwardRight:MoveDir.forwardLeft)
-                :(c2>c1?MoveDir.backwardRight:MoveDir.backwardLeft);
+        // The captured piece sits midway between the two cells
+        int captured = square((r1+r2)/2, (c1+c2)/2);
         
         // Removing Black Piece from the board
-        switch(dir){
-            case forwardLeft:
-                this.cell[r1+1][c1-1] = CellEntry.empty;
-                break;
-            case forwardRight:
-                this.cell[r1+1][c1+1] = CellEntry.empty;
-                break;
-            case backwardLeft:
-                this.cell[r1-1][c1-1] = CellEntry.empty;
-                break;
-            case backwardRight:
-                this.cell[r1-1][c1+1] = CellEntry.empty;
-                break;
-        }
+        this.removePiece(this.pieceAt(captured), captured);
         
         // Decreasing the count of black pieces
         this.blackPieces--;
         
         // Making move
         this.MakeMove(r1, c1, r2, c2);
-        //return dir;
     }
     
     // Capture White Piece and Move
@@ -88,32 +288,17 @@ public class Board {
         // Check Valid Capture
         assert(Math.abs(r2-r1)==2 && Math.abs(c2-c1)==2);
         
-        // Obtain the capture direction
-        MoveDir dir = r2<r1?(c2<c1?MoveDir.forwardRight:MoveDir.forwardLeft)
-                :(c2<c1?MoveDir.backwardRight:MoveDir.backwardLeft);
+        // The captured piece sits midway between the two cells
+        int captured = square((r1+r2)/2, (c1+c2)/2);
         
         // Removing White Piece from the board
-        switch(dir){
-            case forwardLeft:
-                this.cell[r1-1][c1+1] = CellEntry.empty;
-                break;
-            case forwardRight:
-                this.cell[r1-1][c1-1] = CellEntry.empty;
-                break;
-            case backwardLeft:
-                this.cell[r1+1][c1+1] = CellEntry.empty;
-                break;
-            case backwardRight:
-                this.cell[r1+1][c1-1] = CellEntry.empty;
-                break;
-        }
+        this.removePiece(this.pieceAt(captured), captured);
         
         // Decreasing the count of white pieces
         this.whitePieces--;
         
         // Making move
         this.MakeMove(r1, c1, r2, c2);
-        //return dir;
     }
     
     /**
@@ -152,6 +337,122 @@ public class Board {
 
     }
     
+    /**
+     * Applies one step of a move of the given player in place.
+     * The previous state is kept so that unmakeMove() can restore it.
+     */
+    public void makeMove(Move move, Player player){
+        this.saveState();
+        
+        if(player == Player.white){
+            this.genericMakeWhiteMove(move);
+        }else{
+            this.genericMakeBlackMove(move);
+        }
+    }
+    
+    /**
+     * Applies a whole move sequence (e.g. a capture chain) of the given player in place.
+     * The previous state is kept so that a single unmakeMove() restores it.
+     */
+    public void makeMoveSeq(Vector<Move> moveSeq, Player player){
+        this.saveState();
+        
+        for(int i = 0; i<moveSeq.size(); i++){
+            if(player == Player.white){
+                this.genericMakeWhiteMove(moveSeq.get(i));
+            }else{
+                this.genericMakeBlackMove(moveSeq.get(i));
+            }
+        }
+        
+        assert(this.hash == this.computeHash());
+    }
+    
+    /**
+     * Applies a whole move of the given player in place, as produced by MoveGenerator:
+     * the piece goes from square from to square to, the pieces on captured are removed
+     * and the piece is crowned if promotion is set.
+     * The previous state is kept so that unmakeMove() can restore it.
+     */
+    public void makeMove(int from, int to, int captured, boolean promotion, Player player){
+        this.saveState();
+        
+        // Removing the captured pieces
+        int remaining = captured;
+        while(remaining != 0){
+            int square = Integer.numberOfTrailingZeros(remaining);
+            remaining &= remaining-1;
+            
+            this.removePiece(this.pieceAt(square), square);
+        }
+        
+        if(player == Player.white){
+            this.blackPieces -= Integer.bitCount(captured);
+        }else{
+            this.whitePieces -= Integer.bitCount(captured);
+        }
+        
+        int piece = this.pieceAt(from);
+        this.removePiece(piece, from);
+        
+        // Promote To King
+        if(promotion){
+            piece = crowned(piece);
+        }
+        this.putPiece(piece, to);
+        
+        assert(this.hash == this.computeHash());
+    }
+    
+    /**
+     * Applies a move of the given player packed as in PackedMove.
+     */
+    public void makeMove(long move, Player player){
+        this.makeMove(PackedMove.from(move), PackedMove.to(move), PackedMove.captured(move),
+                PackedMove.isPromotion(move), player);
+    }
+    
+    /**
+     * Takes back the last move made by makeMove() or makeMoveSeq(), including
+     * the captured pieces, promotions, the piece counts, the running scores and the hash.
+     */
+    public void unmakeMove(){
+        assert(this.savedCount > 0);
+        
+        int base = --this.savedCount * SAVED_FIELDS;
+        this.white = this.savedStates[base];
+        this.black = this.savedStates[base+1];
+        this.kings = this.savedStates[base+2];
+        this.whitePieces = this.savedStates[base+3];
+        this.blackPieces = this.savedStates[base+4];
+        this.materialScore = this.savedStates[base+5];
+        this.positionScore = this.savedStates[base+6];
+        this.hash = this.savedHashes[this.savedCount];
+    }
+    
+    private void saveState(){
+        int base = this.savedCount * SAVED_FIELDS;
+        if(this.savedStates == null){
+            this.savedStates = new int[16 * SAVED_FIELDS];
+            this.savedHashes = new long[16];
+        }
+        else if(base == this.savedStates.length){
+            this.savedStates = Arrays.copyOf(this.savedStates, 2 * base);
+            this.savedHashes = Arrays.copyOf(this.savedHashes, 2 * this.savedCount);
+        }
+        
+        this.savedStates[base] = this.white;
+        this.savedStates[base+1] = this.black;
+        this.savedStates[base+2] = this.kings;
+        this.savedStates[base+3] = this.whitePieces;
+        this.savedStates[base+4] = this.blackPieces;
+        this.savedStates[base+5] = this.materialScore;
+        this.savedStates[base+6] = this.positionScore;
+        this.savedHashes[this.savedCount] = this.hash;
+        this.savedCount++;
+    }
+    
     public void Display()
     {
         this.DisplayColIndex();
@@ -178,26 +479,28 @@ public class Board {
     }    
 
     private String BoardPiece(int i, int j) {
-        assert(i>0 && i<rows && j>0 && j< cols);
+        assert(i>=0 && i<rows && j>=0 && j< cols);
         String str = new String();
         
-        if(this.cell[i][j] == CellEntry.inValid){
-            str = "     ";
-        }
-        else if(this.cell[i][j] == CellEntry.empty){
-            str = "  _  ";
-        }
-        else if(this.cell[i][j] == CellEntry.white){
-            str = "  W  ";
-        }        
-        else if(this.cell[i][j] == CellEntry.black){
-            str = "  B  ";
-        }
-        else if(this.cell[i][j] == CellEntry.whiteKing){
-            str = "  W+ ";
-        }
-        else if(this.cell[i][j] == CellEntry.blackKing){
-            str = "  B+ ";
+        switch(this.getCell(i, j)){
+            case inValid:
+                str = "     ";
+                break;
+            case empty:
+                str = "  _  ";
+                break;
+            case white:
+                str = "  W  ";
+                break;
+            case black:
+                str = "  B  ";
+                break;
+            case whiteKing:
+                str = "  W+ ";
+                break;
+            case blackKing:
+                str = "  B+ ";
+                break;
         }
         
         return str;
@@ -225,14 +528,31 @@ public class Board {
     
     
     public Board duplicate(){
-        Board newBoard = new Board(this.cell);
+        Board newBoard = new Board(this.white, this.black, this.kings);
         newBoard.blackPieces = this.blackPieces;
         newBoard.whitePieces = this.whitePieces;
+        newBoard.materialScore = this.materialScore;
+        newBoard.positionScore = this.positionScore;
+        newBoard.hash = this.hash;
         
         return newBoard;
     }
     
     
+    @Override
+    public boolean equals(Object other){
+        if(!(other instanceof Board)){
+            return false;
+        }
+        Board board = (Board) other;
+        return this.white == board.white && this.black == board.black && this.kings == board.kings;
+    }
+    
+    @Override
+    public int hashCode(){
+        return (int) (this.hash ^ (this.hash >>> 32));
+    }
+    
     public boolean CheckGameComplete() {
         return (this.blackPieces==0 || this.whitePieces == 0)?true:false;
     }
@@ -240,14 +560,8 @@ public class Board {
     
     public boolean CheckGameDraw(Player turn){
         
-        Vector<Vector<Move>> possibleMoveSeq = Robot.expandMoves(this.duplicate(), turn);
-        
-        if(possibleMoveSeq.isEmpty()){
-            return true;
-            
-        }else{
-            return false;
-        }
+        // The game is drawn when the player to move is stuck.
+        return !MoveGenerator.hasAnyMove(this, turn);
     }
     
     public boolean isWhiteWinner(){
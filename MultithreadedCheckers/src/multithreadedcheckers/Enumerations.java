@@ -38,4 +38,19 @@ enum MoveDir{
     forwardRight,
     backwardLeft,
     backwardRight
-}
\ No newline at end of file
+}
+
+/**
+ * How the robot spreads its search over the threads, see Robot.findBestMove.
+ * ROOT_SPLIT searches every root move in its own task, YBWC splits at any depth once the eldest brother is known,
+ * LAZY_SMP runs the whole search on every thread, sharing a transposition table,
+ * MTDF drives ROOT_SPLIT with zero-window searches only,
+ * MCTS replaces alpha-beta by a Monte Carlo tree search shared by the threads.
+ */
+enum SearchMode{
+    ROOT_SPLIT,
+    YBWC,
+    LAZY_SMP,
+    MTDF,
+    MCTS
+}
@@ -12,7 +12,18 @@ import java.util.Vector;
  */
 public class Human {
     
+    // Steps applied to the board while the current move is being entered, told to Ponder.
+    private static Vector<Move> playedSteps = new Vector<Move>();
+    
     public static void makeNextWhiteMoves(){
+        Board before = Game.board.duplicate();
+        playedSteps.clear();
+        
+        // The robot thinks about its answer meanwhile.
+        if (Black.owner == Owner.ROBOT) {
+            Ponder.start(Game.board, Player.white);
+        }
+        
         boolean incorrectOption = true;        
         while(incorrectOption)
         {
@@ -23,11 +34,20 @@ public class Human {
                 incorrectOption = false;
             }
         }       
-        
+
+        Ponder.humanPlayed(playedSteps, before);
     }
     
     
     public static void makeNextBlackMoves(){
+        Board before = Game.board.duplicate();
+        playedSteps.clear();
+        
+        // The robot thinks about its answer meanwhile.
+        if (White.owner == Owner.ROBOT) {
+            Ponder.start(Game.board, Player.black);
+        }
+        
         boolean incorrectOption = true;
         while(incorrectOption)
         {
@@ -38,7 +58,8 @@ public class Human {
                 incorrectOption = false;
             }
         }       
-        
+
+        Ponder.humanPlayed(playedSteps, before);
     }
     
     
@@ -46,12 +67,12 @@ public class Human {
     {        
         // Select Right Piece and Right Move
         if (
-                Game.board.cell[r1][c1].equals(CellEntry.inValid)   ||
+                Game.board.getCell(r1, c1).equals(CellEntry.inValid)   ||
                 !(
-                Game.board.cell[r1][c1].equals(CellEntry.white)     || 
-                Game.board.cell[r1][c1].equals(CellEntry.whiteKing)
+                Game.board.getCell(r1, c1).equals(CellEntry.white)     || 
+                Game.board.getCell(r1, c1).equals(CellEntry.whiteKing)
                 )
-                || !Game.board.cell[r2][c2].equals(CellEntry.empty)
+                || !Game.board.getCell(r2, c2).equals(CellEntry.empty)
             )
         {
             UserInteractions.PrintSeparator('-');
@@ -76,6 +97,7 @@ public class Human {
                 {
                     // Capture Black Piece
                     Game.board.CaptureBlackPiece(r1,c1,r2,c2);
+                    playedSteps.add(new Move(r1, c1, r2, c2));
 
                     // Update r1 to r2 and c1 to c2
                     r1 = r2;
@@ -144,15 +166,17 @@ public class Human {
             if (forcedMoves.isEmpty()) 
             {                
                 // Forward Move
-                if (r2 - r1 == 1 && Math.abs(c2 - c1) == 1) {
+                if (IsUnitStep(r1, c1, r2, c2, Board.UP_LEFT, Board.UP_RIGHT)) {
                     Game.board.MakeMove(r1, c1, r2, c2);
+                    playedSteps.add(new Move(r1, c1, r2, c2));
                     return true;
                 }
 
                 // Backward Move For WhiteKing
-                else if (Game.board.cell[r1][c1].equals(CellEntry.whiteKing)) {
-                    if (r2 - r1 == -1 && Math.abs(c2 - c1) == 1) {
+                else if (Game.board.getCell(r1, c1).equals(CellEntry.whiteKing)) {
+                    if (IsUnitStep(r1, c1, r2, c2, Board.DOWN_LEFT, Board.DOWN_RIGHT)) {
                         Game.board.MakeMove(r1, c1, r2, c2);
+                        playedSteps.add(new Move(r1, c1, r2, c2));
                         return true;
                     }
                 }
@@ -194,12 +218,12 @@ public class Human {
     {        
         // Select Right Piece and Right Move
         if (
-                Game.board.cell[r1][c1].equals(CellEntry.inValid)   ||
+                Game.board.getCell(r1, c1).equals(CellEntry.inValid)   ||
                 !(
-                Game.board.cell[r1][c1].equals(CellEntry.black)     || 
-                Game.board.cell[r1][c1].equals(CellEntry.blackKing)
+                Game.board.getCell(r1, c1).equals(CellEntry.black)     || 
+                Game.board.getCell(r1, c1).equals(CellEntry.blackKing)
                 )
-                || !Game.board.cell[r2][c2].equals(CellEntry.empty)
+                || !Game.board.getCell(r2, c2).equals(CellEntry.empty)
             )
         {
             UserInteractions.PrintSeparator('-');
@@ -224,6 +248,7 @@ public class Human {
                 {
                     // Capture White Piece
                     Game.board.CaptureWhitePiece(r1,c1,r2,c2);
+                    playedSteps.add(new Move(r1, c1, r2, c2));
 
                     // Update r1 to r2 and c1 to c2
                     r1 = r2;
@@ -294,15 +319,17 @@ public class Human {
             if (forcedMoves.isEmpty()) 
             {                
                 // Forward Move for Black
-                if (r2 - r1 == -1 && Math.abs(c2 - c1) == 1) {
+                if (IsUnitStep(r1, c1, r2, c2, Board.DOWN_LEFT, Board.DOWN_RIGHT)) {
                     Game.board.MakeMove(r1, c1, r2, c2);
+                    playedSteps.add(new Move(r1, c1, r2, c2));
                     return true;
                 }
 
                 // Backward Move For BlackKing
-                else if (Game.board.cell[r1][c1].equals(CellEntry.blackKing)) {
-                    if (r2 - r1 == 1 && Math.abs(c2 - c1) == 1) {
+                else if (Game.board.getCell(r1, c1).equals(CellEntry.blackKing)) {
+                    if (IsUnitStep(r1, c1, r2, c2, Board.UP_LEFT, Board.UP_RIGHT)) {
                         Game.board.MakeMove(r1, c1, r2, c2);
+                        playedSteps.add(new Move(r1, c1, r2, c2));
                         return true;
                     }
                 }
@@ -335,6 +362,12 @@ public class Human {
         return false;
     }
 
-
-    
+    // True if (r2, c2) is the diagonal neighbour of (r1, c1) in direction dir1 or dir2.
+    private static boolean IsUnitStep(int r1, int c1, int r2, int c2, int dir1, int dir2)
+    {
+        int from = Board.square(r1, c1);
+        int to = Board.square(r2, c2);
+        
+        return to == Board.neighbour[dir1][from] || to == Board.neighbour[dir2][from];
+    }
 }
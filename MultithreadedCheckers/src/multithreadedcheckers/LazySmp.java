@@ -0,0 +1,118 @@
+package multithreadedcheckers;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lazy SMP search, selected with -Dcheckers.search=lazy_smp.
+ * <p>
+ * Every thread runs the same iterative deepening search of the root position. They only
+ * cooperate through Robot.transpositionTable: what one thread stores there lets the others
+ * cut their own trees short. Helper threads vary the order of the root moves, and half of them
+ * stay one ply ahead, so that they do not all walk the same nodes in lockstep.
+ * Each searcher aims its iterations at the score of its previous one with aspiration windows, as
+ * Robot.findBestMove does.
+ * The move played is the best of the last iteration the calling thread completed.
+ */
+public class LazySmp {
+
+    /**
+     * Searches the root moves until stop is set or Robot.MAX_DEPTH is reached, and returns the index
+     * of the best one.
+     */
+    public static int search(Board board, Player player, long[] moves, int moveCount, AtomicBoolean stop) {
+        long bestMove = Robot.searchOnAllThreads(stop, id -> iterate(board.duplicate(), player, moves, moveCount, id, stop));
+
+        int bestIndex = 0;
+        while (moves[bestIndex] != bestMove) {
+            bestIndex++;
+        }
+        return bestIndex;
+    }
+
+    /**
+     * Iterative deepening up to Robot.MAX_DEPTH for the searcher id, returning the best move of the
+     * last iteration completed.
+     */
+    private static long iterate(Board board, Player player, long[] rootMoves, int moveCount, int id, AtomicBoolean stop) {
+
+        // Each searcher starts from a different root move.
+        long[] moves = new long[moveCount];
+        for (int i = 0; i < moveCount; i++) {
+            moves[i] = rootMoves[(i + id) % moveCount];
+        }
+
+        SearchContext context = SearchContext.get();
+        int savedHorizon = context.horizon;
+        context.stop = stop;
+        try {
+            long bestMove = moves[0];
+            int[] best = new int[1];
+            int score = 0;
+
+            // Odd helpers search one ply deeper than the others at every iteration.
+            for (int draft = 1 + (id & 1); draft <= Robot.MAX_DEPTH && !stop.get(); draft++) {
+                // The first iteration has no score to aim at.
+                int delta = (draft == 1 + (id & 1)) ? 0 : Robot.ASPIRATION_WINDOW;
+                int alpha = Robot.windowBelow(score, delta);
+                int beta = Robot.windowAbove(score, delta);
+
+                while (true) {
+                    score = searchRoot(context, board, player, moves, moveCount, draft, alpha, beta, best);
+
+                    if (stop.get() || (score > alpha && score < beta)) {
+                        break;
+                    }
+
+                    // As in Robot.aspirate, a window which can not widen any more is not searched again.
+                    if (score == -Robot.INFINITY || score == Robot.INFINITY) {
+                        break;
+                    }
+                    delta = Math.max(delta, 1) * 2;
+                    int widenedAlpha = (score <= alpha) ? Robot.windowBelow(score, delta) : alpha;
+                    int widenedBeta = (score >= beta) ? Robot.windowAbove(score, delta) : beta;
+                    if (widenedAlpha == alpha && widenedBeta == beta) {
+                        break;
+                    }
+                    alpha = widenedAlpha;
+                    beta = widenedBeta;
+                }
+
+                if (stop.get()) {
+                    break;
+                }
+                bestMove = moves[best[0]];
+
+                // The best move so far is searched first at the next iteration.
+                moves[best[0]] = moves[0];
+                moves[0] = bestMove;
+            }
+            return bestMove;
+        } finally {
+            context.stop = null;
+            context.horizon = savedHorizon;
+        }
+    }
+
+    /**
+     * Searches the root moves draft plies deep within (alpha, beta), writes the index of the best one
+     * to bestIndex[0] and returns its score.
+     */
+    private static int searchRoot(SearchContext context, Board board, Player player, long[] moves, int moveCount,
+                                  int draft, int alpha, int beta, int[] bestIndex) {
+        Player opponent = Robot.opponent(player);
+        context.horizon = draft;
+        bestIndex[0] = 0;
+
+        for (int i = 0; i < moveCount && alpha < beta; i++) {
+            board.makeMove(moves[i], player);
+            int value = -Robot.alphaBeta(context, board, opponent, 1, -beta, -alpha);
+            board.unmakeMove();
+
+            if (value > alpha) {
+                alpha = value;
+                bestIndex[0] = i;
+            }
+        }
+        return alpha;
+    }
+}
@@ -0,0 +1,246 @@
+package multithreadedcheckers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monte Carlo tree search, selected with -Dcheckers.search=mcts. It does not use Oracle nor alpha-beta.
+ * <p>
+ * Every thread repeats the same steps on one tree they all share: walk down the tree choosing at every
+ * node the child with the best UCT value, grow the tree by the moves of the node reached, then finish
+ * the game from there with random moves (a playout) and credit its result to every node on the way.
+ * A node counts its visit as soon as a thread goes through it, before the result is known (virtual
+ * loss), so that the other threads are steered towards other branches meanwhile.
+ * <p>
+ * Playouts only follow one rule on top of the legal moves: of the captures, the longest chains are
+ * taken. A playout still running after PLAYOUT_PLIES is decided on material. The move played is the
+ * root move visited most.
+ */
+public class MonteCarloTreeSearch {
+
+    // Playouts of a move, set with -Dcheckers.mcts.playouts=N. 0 means as many as Robot.MOVE_TIME allows,
+    // 20000 when there is no time limit.
+    static final int PLAYOUTS = Integer.getInteger("checkers.mcts.playouts", Robot.MOVE_TIME > 0 ? 0 : 20000);
+
+    // Weight of exploration in UCT, set with -Dcheckers.mcts.c=C.
+    static final double EXPLORATION = Double.parseDouble(System.getProperty("checkers.mcts.c", "1.0"));
+
+    // Plies after which a playout is decided on material.
+    static final int PLAYOUT_PLIES = 100;
+
+    // A node is expanded on its second visit, so that a single playout does not allocate its moves.
+    static final int EXPANSION_VISITS = 2;
+
+    // Results of a game for the player who made a move, in half points.
+    private static final int WIN = 2;
+    private static final int DRAW = 1;
+
+    static class Node {
+
+        final long move;        // move leading to the node, as in PackedMove
+        final Player player;    // player who made it
+
+        // Null until the node is expanded, then never changed.
+        volatile Node[] children;
+
+        final AtomicInteger visits = new AtomicInteger();
+        final AtomicLong points = new AtomicLong();     // half points won by player over the visits
+
+        Node(long move, Player player) {
+            this.move = move;
+            this.player = player;
+        }
+    }
+
+    /**
+     * Searches until stop is set or PLAYOUTS playouts are done, and returns the best of the root moves.
+     */
+    public static long search(Board board, Player player, long[] moves, int moveCount, AtomicBoolean stop) {
+        Node root = new Node(PackedMove.NONE, Robot.opponent(player));
+
+        Node[] children = new Node[moveCount];
+        for (int i = 0; i < moveCount; i++) {
+            children[i] = new Node(moves[i], player);
+        }
+        root.children = children;
+
+        AtomicInteger playouts = new AtomicInteger();
+        Robot.searchOnAllThreads(stop, id -> {
+            work(root, board.duplicate(), player, playouts, stop);
+            return null;
+        });
+
+        Node best = children[0];
+        for (Node child : children) {
+            if (child.visits.get() > best.visits.get()) {
+                best = child;
+            }
+        }
+        return best.move;
+    }
+
+    /**
+     * One worker: runs playouts from root, on its own copy of the board, until the search is over.
+     */
+    private static void work(Node root, Board board, Player player, AtomicInteger playouts, AtomicBoolean stop) {
+        long[] moves = new long[MoveGenerator.MAX_MOVES];
+        List<Node> path = new ArrayList<Node>();
+        Random random = ThreadLocalRandom.current();
+
+        while (!stop.get() && (PLAYOUTS == 0 || playouts.getAndIncrement() < PLAYOUTS)) {
+            Node node = root;
+            Player toMove = player;
+
+            path.clear();
+            path.add(root);
+            root.visits.incrementAndGet();
+
+            // Selection, down to a node not expanded yet or ending the game.
+            while (true) {
+                Node[] children = node.children;
+                if (children == null) {
+                    if (node.visits.get() < EXPANSION_VISITS) {
+                        break;
+                    }
+                    children = expand(node, board, toMove, moves);
+                }
+                if (children.length == 0) {
+                    break;
+                }
+
+                node = select(children, node.visits.get());
+                node.visits.incrementAndGet();
+
+                board.makeMove(node.move, toMove);
+                toMove = Robot.opponent(toMove);
+                path.add(node);
+            }
+
+            int outcome = playout(board, toMove, moves, random);
+
+            // Back to the root position, crediting every node of the path.
+            for (int i = path.size() - 1; i >= 0; i--) {
+                Node visited = path.get(i);
+                visited.points.addAndGet(reward(outcome, visited.player));
+                if (i > 0) {
+                    board.unmakeMove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Children of node, of which toMove is to play on board, created by the first thread to get there.
+     */
+    private static Node[] expand(Node node, Board board, Player toMove, long[] moves) {
+        synchronized (node) {
+            if (node.children == null) {
+                int moveCount = board.CheckGameComplete() ? 0 : MoveGenerator.generateMoves(board, toMove, moves);
+
+                Node[] children = new Node[moveCount];
+                for (int i = 0; i < moveCount; i++) {
+                    children[i] = new Node(moves[i], toMove);
+                }
+                node.children = children;
+            }
+            return node.children;
+        }
+    }
+
+    /**
+     * The child with the best UCT value: the share of points it won, plus a bonus for being visited little.
+     * A child never visited goes first.
+     */
+    private static Node select(Node[] children, int parentVisits) {
+        double logVisits = Math.log(parentVisits);
+        Node best = children[0];
+        double bestValue = Double.NEGATIVE_INFINITY;
+
+        for (Node child : children) {
+            int visits = child.visits.get();
+            if (visits == 0) {
+                return child;
+            }
+
+            double value = child.points.get() / (2.0 * visits) + EXPLORATION * Math.sqrt(logVisits / visits);
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Plays the game on from board, player to move, and returns 1 if white wins it, -1 if black does and
+     * 0 for a draw. The board is left as it was.
+     */
+    private static int playout(Board board, Player player, long[] moves, Random random) {
+        int plies = 0;
+        int outcome;
+
+        while (true) {
+            if (board.CheckGameComplete()) {
+                outcome = board.isWhiteWinner() ? 1 : -1;
+                break;
+            }
+            if (plies == PLAYOUT_PLIES) {
+                outcome = Integer.signum(board.materialScore);
+                break;
+            }
+
+            int moveCount = MoveGenerator.generateMoves(board, player, moves);
+
+            // A player who can not move draws the game.
+            if (moveCount == 0) {
+                outcome = 0;
+                break;
+            }
+
+            board.makeMove(pick(moves, moveCount, random), player);
+            player = Robot.opponent(player);
+            plies++;
+        }
+
+        for (int i = 0; i < plies; i++) {
+            board.unmakeMove();
+        }
+        return outcome;
+    }
+
+    /**
+     * A random move, among the captures taking the most pieces when there are captures.
+     */
+    private static long pick(long[] moves, int moveCount, Random random) {
+        if (!PackedMove.isCapture(moves[0])) {
+            return moves[random.nextInt(moveCount)];
+        }
+
+        // Gather the longest chains at the front.
+        int most = 0;
+        int longest = 0;
+        for (int i = 0; i < moveCount; i++) {
+            int taken = Integer.bitCount(PackedMove.captured(moves[i]));
+            if (taken > most) {
+                most = taken;
+                longest = 0;
+            }
+            if (taken == most) {
+                moves[longest++] = moves[i];
+            }
+        }
+        return moves[random.nextInt(longest)];
+    }
+
+    private static int reward(int outcome, Player player) {
+        if (outcome == 0) {
+            return DRAW;
+        }
+        return (outcome > 0) == (player == Player.white) ? WIN : 0;
+    }
+}
@@ -0,0 +1,172 @@
+package multithreadedcheckers;
+
+/**
+ * Allocation free move generator for the search.
+ * <p>
+ * Writes every legal move of a player, a whole capture chain counting as one move,
+ * into a buffer supplied by the caller and returns how many moves were written.
+ * Moves are produced in the same order as Robot.expandMoves and encoded as in PackedMove.
+ */
+public class MoveGenerator {
+
+    static final int MAX_MOVES = 256;
+
+    // Forward directions first, the backward ones are only used by kings.
+    private static final int[] WHITE_DIRS = {Board.UP_LEFT, Board.UP_RIGHT, Board.DOWN_LEFT, Board.DOWN_RIGHT};
+    private static final int[] BLACK_DIRS = {Board.DOWN_RIGHT, Board.DOWN_LEFT, Board.UP_RIGHT, Board.UP_LEFT};
+
+    private static final int WHITE_KING_ROW = 0xF0000000;
+    private static final int BLACK_KING_ROW = 0x0000000F;
+
+    public static int generateMoves(Board board, Player player, long[] buffer) {
+
+        int own = (player == Player.white) ? board.white : board.black;
+        int opp = (player == Player.white) ? board.black : board.white;
+        int[] dirs = (player == Player.white) ? WHITE_DIRS : BLACK_DIRS;
+        int kingRow = (player == Player.white) ? WHITE_KING_ROW : BLACK_KING_ROW;
+        int empty = board.emptySquares();
+        int count = 0;
+
+        // Captures are forced, so they are looked for first.
+        int pieces = own;
+        while (pieces != 0) {
+            int from = Integer.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+
+            boolean king = (board.kings & (1 << from)) != 0;
+
+            // The moving piece leaves its square for the whole chain.
+            count = addCaptures(buffer, count, from, from, king, king, dirs, kingRow, opp, empty | (1 << from), 0);
+        }
+
+        if (count > 0) {
+            return count;
+        }
+
+        pieces = own;
+        while (pieces != 0) {
+            int from = Integer.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+
+            int numDirs = (board.kings & (1 << from)) != 0 ? 4 : 2;
+            for (int i = 0; i < numDirs; i++) {
+                int to = Board.neighbour[dirs[i]][from];
+
+                if (to >= 0 && (empty & (1 << to)) != 0) {
+                    boolean promotion = numDirs == 2 && (kingRow & (1 << to)) != 0;
+                    count = addMove(buffer, count, from, to, 0, promotion);
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Tells whether the player has at least one legal move, step or capture.
+     * Stops at the first one found and never allocates.
+     */
+    public static boolean hasAnyMove(Board board, Player player) {
+
+        int own = (player == Player.white) ? board.white : board.black;
+        int opp = (player == Player.white) ? board.black : board.white;
+        int[] dirs = (player == Player.white) ? WHITE_DIRS : BLACK_DIRS;
+        int empty = board.emptySquares();
+
+        while (own != 0) {
+            int from = Integer.numberOfTrailingZeros(own);
+            own &= own - 1;
+
+            int numDirs = (board.kings & (1 << from)) != 0 ? 4 : 2;
+            for (int i = 0; i < numDirs; i++) {
+                int next = Board.neighbour[dirs[i]][from];
+
+                if (next < 0) {
+                    continue;
+                }
+                if ((empty & (1 << next)) != 0) {
+                    return true;
+                }
+
+                int to = Board.jump[dirs[i]][from];
+                if ((opp & (1 << next)) != 0 && to >= 0 && (empty & (1 << to)) != 0) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Tells whether the player has a capture, and so may only capture.
+     * Stops at the first jump found and never allocates.
+     */
+    public static boolean hasCapture(Board board, Player player) {
+
+        int own = (player == Player.white) ? board.white : board.black;
+        int opp = (player == Player.white) ? board.black : board.white;
+        int[] dirs = (player == Player.white) ? WHITE_DIRS : BLACK_DIRS;
+        int empty = board.emptySquares();
+
+        while (own != 0) {
+            int from = Integer.numberOfTrailingZeros(own);
+            own &= own - 1;
+
+            int numDirs = (board.kings & (1 << from)) != 0 ? 4 : 2;
+            for (int i = 0; i < numDirs; i++) {
+                int to = Board.jump[dirs[i]][from];
+
+                if (to >= 0 && (opp & (1 << Board.neighbour[dirs[i]][from])) != 0 && (empty & (1 << to)) != 0) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Follows every capture chain from square at and adds the ones which can not be extended.
+     * A man reaching the king row carries on capturing as a king, like Board.MakeMove does.
+     */
+    private static int addCaptures(long[] buffer, int count, int from, int at, boolean wasKing, boolean king,
+                                   int[] dirs, int kingRow, int opp, int empty, int captured) {
+
+        boolean extended = false;
+        int numDirs = king ? 4 : 2;
+
+        for (int i = 0; i < numDirs; i++) {
+            int dir = dirs[i];
+            int to = Board.jump[dir][at];
+
+            if (to < 0) {
+                continue;
+            }
+
+            int over = 1 << Board.neighbour[dir][at];
+            if ((opp & over) != 0 && (empty & (1 << to)) != 0) {
+                extended = true;
+
+                boolean nowKing = king || (kingRow & (1 << to)) != 0;
+                count = addCaptures(buffer, count, from, to, wasKing, nowKing, dirs, kingRow,
+                        opp & ~over, empty | over, captured | over);
+            }
+        }
+
+        if (!extended && captured != 0) {
+            count = addMove(buffer, count, from, at, captured, king && !wasKing);
+        }
+
+        return count;
+    }
+
+    private static int addMove(long[] buffer, int count, int from, int to, int captured, boolean promotion) {
+        assert (count < MAX_MOVES);
+
+        if (count < MAX_MOVES) {
+            buffer[count++] = PackedMove.encode(from, to, captured, promotion);
+        }
+        return count;
+    }
+}
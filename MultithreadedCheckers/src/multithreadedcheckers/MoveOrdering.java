@@ -0,0 +1,133 @@
+package multithreadedcheckers;
+
+/**
+ * Puts the moves of a node in the order most likely to cause an early cutoff:
+ * <ol>
+ * <li>the best move the transposition table holds for the position,</li>
+ * <li>captures, the longest chains first (when a capture exists every move is one),</li>
+ * <li>the two killer moves of the ply, quiet moves which recently caused a cutoff there,</li>
+ * <li>the other moves, those which caused the most cutoffs anywhere in the tree first (history).</li>
+ * </ol>
+ * Killers and history live in the SearchContext, so every search thread learns on its own.
+ */
+public class MoveOrdering {
+
+    // History scores are halved when one of them goes past this.
+    private static final int MAX_HISTORY = 1 << 20;
+
+    /**
+     * Orders moves[0..moveCount) for the node at ply, where player is to move. hashMove holds the from
+     * and to squares of the best move stored in the transposition table, as TranspositionTable.move
+     * returns them, 0 for none.
+     */
+    static void order(SearchContext context, Player player, long[] moves, int moveCount, int ply, int hashMove) {
+        if (moveCount < 2) {
+            return;
+        }
+
+        if (PackedMove.isCapture(moves[0])) {
+            // Insertion sort on the number of pieces taken, stable so that equal chains keep their order.
+            for (int i = 1; i < moveCount; i++) {
+                long move = moves[i];
+                int taken = Integer.bitCount(PackedMove.captured(move));
+                int j = i - 1;
+
+                while (j >= 0 && Integer.bitCount(PackedMove.captured(moves[j])) < taken) {
+                    moves[j + 1] = moves[j];
+                    j--;
+                }
+                moves[j + 1] = move;
+            }
+            promoteSquares(moves, moveCount, hashMove);
+            return;
+        }
+
+        // Insertion sort on the history scores, stable so that equal scores keep the generator's order.
+        int[] history = context.history[player.ordinal()];
+        for (int i = 1; i < moveCount; i++) {
+            long move = moves[i];
+            int score = history[squares(move)];
+            int j = i - 1;
+
+            while (j >= 0 && history[squares(moves[j])] < score) {
+                moves[j + 1] = moves[j];
+                j--;
+            }
+            moves[j + 1] = move;
+        }
+
+        long[] killers = context.killers[ply];
+        int front = promoteSquares(moves, moveCount, hashMove);
+        front = promote(moves, moveCount, front, killers[0]);
+        promote(moves, moveCount, front, killers[1]);
+    }
+
+    /**
+     * Records that move, played by player, caused a cutoff at ply with draft plies left.
+     */
+    static void cutoff(SearchContext context, Player player, long move, int ply, int draft) {
+        if (PackedMove.isCapture(move)) {
+            return;
+        }
+
+        long[] killers = context.killers[ply];
+        if (killers[0] != move) {
+            killers[1] = killers[0];
+            killers[0] = move;
+        }
+
+        // Cutoffs far from the leaves prune more, and count more.
+        int[] history = context.history[player.ordinal()];
+        history[squares(move)] += draft * draft;
+        if (history[squares(move)] > MAX_HISTORY) {
+            for (int i = 0; i < history.length; i++) {
+                history[i] >>= 1;
+            }
+        }
+    }
+
+    /**
+     * From and to squares of move, as in the low 10 bits of a PackedMove.
+     */
+    static int squares(long move) {
+        return (int) move & 0x3FF;
+    }
+
+    /**
+     * Moves the first move going between the squares of hashMove to the front, and returns the next
+     * free position.
+     */
+    private static int promoteSquares(long[] moves, int moveCount, int hashMove) {
+        if (hashMove == 0) {
+            return 0;
+        }
+
+        for (int i = 0; i < moveCount; i++) {
+            if (squares(moves[i]) == hashMove) {
+                long move = moves[i];
+                System.arraycopy(moves, 0, moves, 1, i);
+                moves[0] = move;
+                return 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Moves move, if it is in moves[front..moveCount), to position front and returns the next free one.
+     */
+    private static int promote(long[] moves, int moveCount, int front, long move) {
+        if (move == PackedMove.NONE) {
+            return front;
+        }
+
+        for (int i = front; i < moveCount; i++) {
+            if (moves[i] == move) {
+                System.arraycopy(moves, front, moves, front + 1, i - front);
+                moves[front] = move;
+                return front + 1;
+            }
+        }
+        return front;
+    }
+}
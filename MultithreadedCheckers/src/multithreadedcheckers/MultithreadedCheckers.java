@@ -1,10 +1,18 @@
 package multithreadedcheckers;
 
+import java.util.Arrays;
+
 public class MultithreadedCheckers 
 {
 
     public static void main(String args[]){
+        // "perft depth [serial|parallel|legacy] [position w|b]" benchmarks the move generator instead of playing.
+        if(args.length > 0 && args[0].equals("perft")){
+            Perft.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        
         Game game = new Game();
         game.PlayGame();        
     }  
-}
+}
\ No newline at end of file
@@ -0,0 +1,44 @@
+package multithreadedcheckers;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * TranspositionTable kept outside of the Java heap, for tables of several gigabytes which the
+ * garbage collector should neither scan nor move. Selected with -Dcheckers.hash.offheap=true.
+ * <p>
+ * The memory is made of direct buffers of at most 1 GB each, since a buffer is indexed by an int.
+ * The JVM only hands out as much direct memory as -XX:MaxDirectMemorySize allows, which is
+ * the maximum heap size unless set.
+ */
+public class OffHeapTranspositionTable extends TranspositionTable {
+
+    // Slots per buffer: 2^27 longs, i.e. 1 GB.
+    private static final int CHUNK_SHIFT = 27;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    private final LongBuffer[] chunks;
+
+    public OffHeapTranspositionTable(int megabytes) {
+        super(entriesFor(megabytes));
+
+        long slots = 2 * entriesFor(megabytes);
+        int chunkSlots = (int) Math.min(slots, 1L << CHUNK_SHIFT);
+
+        this.chunks = new LongBuffer[(int) (slots / chunkSlots)];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = ByteBuffer.allocateDirect(chunkSlots * 8).order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+    }
+
+    @Override
+    protected long readSlot(long index) {
+        return chunks[(int) (index >>> CHUNK_SHIFT)].get((int) (index & CHUNK_MASK));
+    }
+
+    @Override
+    protected void writeSlot(long index, long value) {
+        chunks[(int) (index >>> CHUNK_SHIFT)].put((int) (index & CHUNK_MASK), value);
+    }
+}
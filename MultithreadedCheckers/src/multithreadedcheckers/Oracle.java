@@ -6,15 +6,42 @@ package multithreadedcheckers;
  */
 public class Oracle {
 
-    public final int POINT_WON = 100000;
-    public final int POINT_KING = 2000;
-    public final int POINT_NORMAL = 1000;
-    public final int POINT_CENTRAL_PIECE = 100;
-    public final int POINT_END_PIECE = 50;
+    public static final int POINT_WON = 100000;
+    public static final int POINT_KING = 2000;
+    public static final int POINT_NORMAL = 1000;
+    public static final int POINT_CENTRAL_PIECE = 100;
+    public static final int POINT_END_PIECE = 50;
     public final int POINT_DEFENCE = 50;
     public final int POINT_ATTACK_NORMAL = 30;
     public final int POINT_ATTACK_KING = 60;
 
+    // Value of each kind of piece (see Board.WHITE_MAN etc.), white counting positive.
+    static final int[] PIECE_VALUE = {POINT_NORMAL, POINT_KING, -POINT_NORMAL, -POINT_KING};
+
+    // PIECE_SQUARE[piece][square] is what a piece is worth on top of PIECE_VALUE on that square.
+    // Board keeps the sums of both tables up to date as moves are made and taken back.
+    static final int[][] PIECE_SQUARE = new int[4][Board.squares];
+
+    static {
+        // Central Points
+        for (int square : new int[]{Board.square(3, 3), Board.square(3, 5)}) {
+            PIECE_SQUARE[Board.WHITE_MAN][square] += POINT_CENTRAL_PIECE;
+            PIECE_SQUARE[Board.WHITE_KING][square] += POINT_CENTRAL_PIECE;
+        }
+        for (int square : new int[]{Board.square(4, 2), Board.square(4, 4)}) {
+            PIECE_SQUARE[Board.BLACK_MAN][square] -= POINT_CENTRAL_PIECE;
+            PIECE_SQUARE[Board.BLACK_KING][square] -= POINT_CENTRAL_PIECE;
+        }
+
+        // End Points, for the men guarding their own back row
+        for (int square : new int[]{Board.square(0, 2), Board.square(0, 4), Board.square(0, 6)}) {
+            PIECE_SQUARE[Board.WHITE_MAN][square] += POINT_END_PIECE;
+        }
+        for (int square : new int[]{Board.square(7, 1), Board.square(7, 3), Board.square(7, 5)}) {
+            PIECE_SQUARE[Board.BLACK_MAN][square] -= POINT_END_PIECE;
+        }
+    }
+
     public int evaluateBoard(Board board, Player player) {
         int boardValue = 0;
 
@@ -34,8 +61,10 @@ public class Oracle {
             wValue += POINT_WON;
             return wValue;
         } else {
-            wValue = WhiteBlackPiecesDifferencePoints(board);
-//            wValue += BoardPositionPoints(board);
+            // Both totals are kept up to date by Board, no need to scan it.
+            assert (board.materialScore == WhiteBlackPiecesDifferencePoints(board));
+            assert (board.positionScore == BoardPositionPoints(board));
+            wValue = board.materialScore + board.positionScore;
             wValue /= board.blackPieces;
         }
 
@@ -49,60 +78,36 @@ public class Oracle {
             bValue -= POINT_WON;
             return bValue;
         } else {
-            bValue = WhiteBlackPiecesDifferencePoints(board);
-//            bValue += BoardPositionPoints(board);
+            // Both totals are kept up to date by Board, no need to scan it.
+            assert (board.materialScore == WhiteBlackPiecesDifferencePoints(board));
+            assert (board.positionScore == BoardPositionPoints(board));
+            bValue = board.materialScore + board.positionScore;
             bValue /= board.whitePieces;
         }
 
         return bValue;
     }
 
-    private int WhiteBlackPiecesDifferencePoints(Board board) {
+    // Full recount of the material, used to check Board.materialScore.
+    static int WhiteBlackPiecesDifferencePoints(Board board) {
         
-        int value = 0;
-        // Scan across the board
-        for (int r = 0; r < Board.rows; r++) {
-            // Check only valid cols
-            int c = (r % 2 == 0) ? 0 : 1;
-            for (; c < Board.cols; c += 2) {
-                assert (!board.cell[r][c].equals(CellEntry.inValid));
-                CellEntry entry = board.cell[r][c];
-
-                if (entry == CellEntry.white) {
-                    value += POINT_NORMAL;
-                } else if (entry == CellEntry.whiteKing) {
-                    value += POINT_KING;
-                } else if (entry == CellEntry.black) {
-                    value -= POINT_NORMAL;
-                } else if (entry == CellEntry.blackKing) {
-                    value -= POINT_KING;
-                }
-            }
-        }
-        return value;
+        int whiteKings = Integer.bitCount(board.white & board.kings);
+        int blackKings = Integer.bitCount(board.black & board.kings);
+        int whiteNormal = Integer.bitCount(board.white) - whiteKings;
+        int blackNormal = Integer.bitCount(board.black) - blackKings;
+        
+        return (whiteNormal - blackNormal) * POINT_NORMAL + (whiteKings - blackKings) * POINT_KING;
     }
 
-    private int BoardPositionPoints(Board board) {
+    // Full recount of the piece-square points, used to check Board.positionScore.
+    static int BoardPositionPoints(Board board) {
 
         int value = 0;
-        
-        // Central Points
-        if (board.cell[3][3] == CellEntry.white || board.cell[3][3] == CellEntry.whiteKing 
-                || board.cell[3][5] == CellEntry.white || board.cell[3][5] == CellEntry.whiteKing) {
-            value += POINT_CENTRAL_PIECE;
-        }
-        if (board.cell[4][2] == CellEntry.black || board.cell[4][2] == CellEntry.blackKing
-                || board.cell[4][4] == CellEntry.black || board.cell[4][4] == CellEntry.blackKing) {
-            value -= POINT_CENTRAL_PIECE;
-        }
-        
-        // End Points
-        if (board.cell[0][2] == CellEntry.white || board.cell[0][4] == CellEntry.white || board.cell[0][6] == CellEntry.white){
-            value += POINT_END_PIECE;
-        }
-        
-        if (board.cell[7][1] == CellEntry.black || board.cell[7][3] == CellEntry.black || board.cell[7][5] == CellEntry.black){
-            value -= POINT_END_PIECE;
+        for (int square = 0; square < Board.squares; square++) {
+            int piece = board.pieceAt(square);
+            if (piece >= 0) {
+                value += PIECE_SQUARE[piece][square];
+            }
         }
                 
         return value;
@@ -112,14 +117,14 @@ public class Oracle {
     //To be called only by on a cell which has a black piece.    
     private int calcPointsFAforBlack(Board board, int r, int c) {
 
-        CellEntry entry = board.cell[r][c];
+        CellEntry entry = board.getCell(r, c);
         assert ((entry == CellEntry.black || entry == CellEntry.blackKing));
         int points = 0;
 
         if (r > 0) {
             if (c < Board.cols - 1) {
-                if ((board.cell[r - 1][c + 1] == CellEntry.white || board.cell[r - 1][c + 1] == CellEntry.whiteKing)
-                        && r < Board.rows - 1 && c >= 1 && board.cell[r + 1][c - 1] == CellEntry.empty) {
+                if ((board.getCell(r - 1, c + 1) == CellEntry.white || board.getCell(r - 1, c + 1) == CellEntry.whiteKing)
+                        && r < Board.rows - 1 && c >= 1 && board.getCell(r + 1, c - 1) == CellEntry.empty) {
                     points -= POINT_ATTACK_NORMAL;
                 }
                 //TODO: Add backward attack for black king.
@@ -128,8 +133,8 @@ public class Oracle {
 
             if (c > 0) {
                 //Attack Points
-                if ((board.cell[r - 1][c - 1] == CellEntry.white || board.cell[r - 1][c - 1] == CellEntry.whiteKing)
-                        && r < Board.rows - 1 && c < Board.cols - 1 && board.cell[r + 1][c + 1] == CellEntry.empty) {
+                if ((board.getCell(r - 1, c - 1) == CellEntry.white || board.getCell(r - 1, c - 1) == CellEntry.whiteKing)
+                        && r < Board.rows - 1 && c < Board.cols - 1 && board.getCell(r + 1, c + 1) == CellEntry.empty) {
                     points -= POINT_ATTACK_NORMAL;
                 }
             }
@@ -140,20 +145,20 @@ public class Oracle {
     //Calculate points for defending black.
     private int calcPointsFDforBlack(Board board, int r, int c) {
 
-        CellEntry entry = board.cell[r][c];
+        CellEntry entry = board.getCell(r, c);
         assert ((entry == CellEntry.black || entry == CellEntry.blackKing));
         int points = 0;
 
         if (r == Board.rows - 1) {
             points += POINT_DEFENCE;
         } else if (r == Board.rows - 3
-                && ((c < Board.cols - 2 && board.cell[Board.rows - 1][c + 2] == CellEntry.black && board.cell[Board.rows - 2][c + 1] == CellEntry.empty)
-                || (c >= 2 && board.cell[Board.rows - 1][c - 2] == CellEntry.black && board.cell[Board.rows - 2][c - 1] == CellEntry.empty))) {
+                && ((c < Board.cols - 2 && board.getCell(Board.rows - 1, c + 2) == CellEntry.black && board.getCell(Board.rows - 2, c + 1) == CellEntry.empty)
+                || (c >= 2 && board.getCell(Board.rows - 1, c - 2) == CellEntry.black && board.getCell(Board.rows - 2, c - 1) == CellEntry.empty))) {
             points += POINT_DEFENCE;
         } else if (r < Board.rows - 1) {
 
             if (c < Board.cols - 1) {
-                if (board.cell[r + 1][c + 1] == CellEntry.black || board.cell[r + 1][c + 1] == CellEntry.blackKing) {
+                if (board.getCell(r + 1, c + 1) == CellEntry.black || board.getCell(r + 1, c + 1) == CellEntry.blackKing) {
                     points += POINT_DEFENCE;
                 }
 
@@ -161,7 +166,7 @@ public class Oracle {
 
             if (c > 0) {
                 //Defense points
-                if (board.cell[r + 1][c - 1] == CellEntry.black || board.cell[r + 1][c - 1] == CellEntry.blackKing) {
+                if (board.getCell(r + 1, c - 1) == CellEntry.black || board.getCell(r + 1, c - 1) == CellEntry.blackKing) {
                     points += POINT_DEFENCE;
                 }
             }
@@ -171,7 +176,7 @@ public class Oracle {
     }
 
     private int calcPointsFAforWhite(Board board, int r, int c) {
-        CellEntry entry = board.cell[r][c];
+        CellEntry entry = board.getCell(r, c);
         assert ((entry == CellEntry.white || entry == CellEntry.whiteKing));
         int points = 0;
 
@@ -179,7 +184,7 @@ public class Oracle {
             if (c < Board.cols - 1) {
 
                 //Debit points for unsafe attack.
-                if (board.cell[r + 1][c + 1] == CellEntry.black || board.cell[r + 1][c + 1] == CellEntry.blackKing) {
+                if (board.getCell(r + 1, c + 1) == CellEntry.black || board.getCell(r + 1, c + 1) == CellEntry.blackKing) {
                     points -= POINT_ATTACK_NORMAL;
                 }
 
@@ -187,7 +192,7 @@ public class Oracle {
             if (c > 0) {
 
                 //Attack Points.
-                if (board.cell[r + 1][c - 1] == CellEntry.black || board.cell[r + 1][c - 1] == CellEntry.blackKing) {
+                if (board.getCell(r + 1, c - 1) == CellEntry.black || board.getCell(r + 1, c - 1) == CellEntry.blackKing) {
                     points += POINT_ATTACK_NORMAL;
                 }
 
@@ -199,27 +204,27 @@ public class Oracle {
 
     private int calcPointsFDforWhite(Board board, int r, int c) {
 
-        CellEntry entry = board.cell[r][c];
+        CellEntry entry = board.getCell(r, c);
         assert ((entry == CellEntry.white || entry == CellEntry.whiteKing));
         int points = 0;
 
         if (r == 0) {
             points += POINT_DEFENCE;
         } else if (r == 2
-                && ((c < Board.cols - 2 && board.cell[2][c + 2] == CellEntry.white && board.cell[1][c + 1] == CellEntry.empty)
-                || (c >= 2 && board.cell[0][c - 2] == CellEntry.black && board.cell[1][c - 1] == CellEntry.empty))) {
+                && ((c < Board.cols - 2 && board.getCell(2, c + 2) == CellEntry.white && board.getCell(1, c + 1) == CellEntry.empty)
+                || (c >= 2 && board.getCell(0, c - 2) == CellEntry.black && board.getCell(1, c - 1) == CellEntry.empty))) {
             points += POINT_DEFENCE;
         } else if (r >= 2) {
             if (c < Board.cols - 1) {
 
                 //Defense Points
-                if (board.cell[r - 1][c + 1] == CellEntry.white || board.cell[r - 1][c + 1] == CellEntry.whiteKing) {
+                if (board.getCell(r - 1, c + 1) == CellEntry.white || board.getCell(r - 1, c + 1) == CellEntry.whiteKing) {
                     points += POINT_DEFENCE;
                 }
             }
             if (c > 0) {
 
-                if (board.cell[r - 1][c - 1] == CellEntry.white || board.cell[r - 1][c - 1] == CellEntry.whiteKing) {
+                if (board.getCell(r - 1, c - 1) == CellEntry.white || board.getCell(r - 1, c - 1) == CellEntry.whiteKing) {
                     points += POINT_DEFENCE;
                 }
             }
@@ -0,0 +1,124 @@
+package multithreadedcheckers;
+
+import java.util.Vector;
+
+/**
+ * A whole move, capture chain included, packed into one long:
+ * <pre>
+ *   bits  0-4   square the piece starts from
+ *   bits  5-9   square the piece ends on
+ *   bit   10    set when the move crowns the piece
+ *   bits 32-63  mask of the captured squares
+ * </pre>
+ * Squares are numbered as in Board.square(r, c).
+ * Move lists, killer moves and hash entries can hold moves this way without creating objects.
+ */
+public class PackedMove {
+
+    static final long NONE = 0;
+
+    private static final long PROMOTION = 1 << 10;
+
+    static long encode(int from, int to, int captured, boolean promotion) {
+        return from | (to << 5) | (promotion ? PROMOTION : 0) | ((long) captured << 32);
+    }
+
+    static int from(long move) {
+        return (int) move & 31;
+    }
+
+    static int to(long move) {
+        return ((int) move >>> 5) & 31;
+    }
+
+    static int captured(long move) {
+        return (int) (move >>> 32);
+    }
+
+    static boolean isPromotion(long move) {
+        return (move & PROMOTION) != 0;
+    }
+
+    static boolean isCapture(long move) {
+        return captured(move) != 0;
+    }
+
+    /**
+     * Packs a move sequence, as made by a human or returned by Robot.expandMoves,
+     * for the position of board before the sequence is played.
+     */
+    public static long fromMoveSeq(Vector<Move> moveSeq, Board board) {
+        Move first = moveSeq.firstElement();
+        Move last = moveSeq.lastElement();
+
+        int from = Board.square(first.initialRow, first.initialCol);
+        int to = Board.square(last.finalRow, last.finalCol);
+        boolean white = (board.white & (1 << from)) != 0;
+        boolean king = (board.kings & (1 << from)) != 0;
+
+        int captured = 0;
+        boolean promotion = false;
+
+        for (Move m : moveSeq) {
+            if (Math.abs(m.finalRow - m.initialRow) == 2) {
+                captured |= 1 << Board.square((m.initialRow + m.finalRow) / 2, (m.initialCol + m.finalCol) / 2);
+            }
+            if (!king && m.finalRow == (white ? Board.rows - 1 : 0)) {
+                promotion = true;
+            }
+        }
+
+        return encode(from, to, captured, promotion);
+    }
+
+    /**
+     * Unpacks a move of player into the sequence of single steps that plays it on board,
+     * the form used by Board.genericMakeWhiteMove/genericMakeBlackMove and UserInteractions.DisplayMoveSeq.
+     */
+    public static Vector<Move> toMoveSeq(long move, Board board, Player player) {
+        int from = from(move);
+        int to = to(move);
+        Vector<Move> moveSeq = new Vector<Move>();
+
+        if (!isCapture(move)) {
+            moveSeq.add(new Move(Board.row(from), Board.col(from), Board.row(to), Board.col(to)));
+            return moveSeq;
+        }
+
+        boolean king = (board.kings & (1 << from)) != 0;
+        findJumps(moveSeq, from, to, captured(move), king, player, board.emptySquares() | (1 << from));
+
+        assert (!moveSeq.isEmpty());
+        return moveSeq;
+    }
+
+    // Looks for an order of jumps from at which takes exactly the pieces on remaining and stops on to.
+    private static boolean findJumps(Vector<Move> moveSeq, int at, int to, int remaining, boolean king,
+                                     Player player, int empty) {
+        if (remaining == 0) {
+            return at == to;
+        }
+
+        for (int dir = 0; dir < 4; dir++) {
+            boolean forward = (player == Player.white) == (dir == Board.UP_LEFT || dir == Board.UP_RIGHT);
+            int next = Board.jump[dir][at];
+
+            if (next < 0 || !(king || forward)) {
+                continue;
+            }
+
+            int over = 1 << Board.neighbour[dir][at];
+            if ((remaining & over) != 0 && (empty & (1 << next)) != 0) {
+                boolean nowKing = king || Board.row(next) == (player == Player.white ? Board.rows - 1 : 0);
+
+                moveSeq.add(new Move(Board.row(at), Board.col(at), Board.row(next), Board.col(next)));
+                if (findJumps(moveSeq, next, to, remaining & ~over, nowKing, player, empty | over)) {
+                    return true;
+                }
+                moveSeq.remove(moveSeq.size() - 1);
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,214 @@
+package multithreadedcheckers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft: counts the leaf nodes of the move tree down to a given depth.
+ * <p>
+ * Used to measure the raw speed of MoveGenerator and to check it against the
+ * original generator (Black/White through Robot.expandMoves), which must give the same counts.
+ * <p>
+ * Usage: java multithreadedcheckers.Perft depth [serial|parallel|legacy] [position w|b]
+ * <p>
+ * The count starts from the initial board with white to move, or from position with the given side to
+ * move. A position lists the rows from 7 down to 0, as Board.Display shows them, separated by '/'.
+ * Each row holds its 4 playable squares from left to right: w and b for men, W and B for kings,
+ * '.' for an empty square. The initial board is bbbb/bbbb/bbbb/..../..../wwww/wwww/wwww.
+ */
+public class Perft {
+
+    // Below this many plies left, a parallel task counts its subtree by itself.
+    static final int SPLIT_DEPTH = 3;
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        String mode = args.length > 1 ? args[1].toLowerCase() : "serial";
+        Board board = args.length > 2 ? parsePosition(args[2]) : new Board();
+        Player player = (args.length > 3 && args[3].equalsIgnoreCase("b")) ? Player.black : Player.white;
+
+        divide(board, player, depth, mode);
+    }
+
+    /**
+     * Board of a position written as described in the class comment.
+     */
+    static Board parsePosition(String position) {
+        String[] rows = position.split("/");
+        if (rows.length != Board.rows) {
+            throw new IllegalArgumentException("A position has " + Board.rows + " rows separated by '/': " + position);
+        }
+
+        CellEntry[][] cells = new CellEntry[Board.rows][Board.cols];
+        for (int r = 0; r < Board.rows; r++) {
+            String row = rows[Board.rows - 1 - r];
+            if (row.length() != Board.cols / 2) {
+                throw new IllegalArgumentException("A row has " + Board.cols / 2 + " squares: " + row);
+            }
+
+            for (int i = 0; i < row.length(); i++) {
+                int c = 2 * i + r % 2;
+                switch (row.charAt(i)) {
+                    case 'w':
+                        cells[r][c] = CellEntry.white;
+                        break;
+                    case 'W':
+                        cells[r][c] = CellEntry.whiteKing;
+                        break;
+                    case 'b':
+                        cells[r][c] = CellEntry.black;
+                        break;
+                    case 'B':
+                        cells[r][c] = CellEntry.blackKing;
+                        break;
+                    case '.':
+                        cells[r][c] = CellEntry.empty;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown square '" + row.charAt(i) + "' in " + row);
+                }
+            }
+        }
+        return new Board(cells);
+    }
+
+    /**
+     * Counts the leaves below each root move, then the total and the nodes per second.
+     */
+    public static long divide(Board board, Player player, int depth, String mode) {
+        assert (depth >= 1);
+
+        long[] moves = new long[MoveGenerator.MAX_MOVES];
+        int moveCount = MoveGenerator.generateMoves(board, player, moves);
+        Player opponent = Robot.opponent(player);
+
+        long total = 0;
+        long currTime = System.nanoTime();
+
+        for (int i = 0; i < moveCount; i++) {
+            Vector<Move> moveSeq = PackedMove.toMoveSeq(moves[i], board, player);
+            Board child = board.duplicate();
+            child.makeMove(moves[i], player);
+
+            long nodes;
+            if (depth == 1) {
+                nodes = 1;
+            } else if (mode.equals("parallel")) {
+                nodes = parallelPerft(child, opponent, depth - 1);
+            } else if (mode.equals("legacy")) {
+                nodes = legacyPerft(child, opponent, depth - 1);
+            } else {
+                nodes = perft(child, opponent, depth - 1);
+            }
+            total += nodes;
+
+            for (Move m : moveSeq) {
+                m.display();
+                System.out.print(", ");
+            }
+            System.out.println(": " + nodes);
+        }
+
+        long time = Math.max(System.nanoTime() - currTime, 1);
+        System.out.println("Depth " + depth + " (" + mode + "): " + total + " nodes in " + time / 1000000 + " ms, "
+                + (total * 1000000000L / time) + " nodes/s");
+
+        return total;
+    }
+
+    /**
+     * Leaf count with MoveGenerator, on one thread.
+     */
+    public static long perft(Board board, Player player, int depth) {
+        return perft(SearchContext.get(), board, player, depth);
+    }
+
+    private static long perft(SearchContext context, Board board, Player player, int depth) {
+        long[] moves = context.moves[depth];
+        int moveCount = MoveGenerator.generateMoves(board, player, moves);
+
+        // The moves of the last ply are counted, not played.
+        if (depth <= 1) {
+            return depth == 1 ? moveCount : 1;
+        }
+
+        Player opponent = Robot.opponent(player);
+        long nodes = 0;
+
+        for (int i = 0; i < moveCount; i++) {
+            board.makeMove(moves[i], player);
+            nodes += perft(context, board, opponent, depth - 1);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Leaf count with MoveGenerator, split across the search pool with fork-join.
+     */
+    public static long parallelPerft(Board board, Player player, int depth) {
+        return Robot.searchPool.invoke(new PerftTask(board.duplicate(), player, depth));
+    }
+
+    /**
+     * Leaf count with the original generator, to validate MoveGenerator against it.
+     */
+    public static long legacyPerft(Board board, Player player, int depth) {
+        Vector<Vector<Move>> possibleMoveSeq = Robot.expandMoves(board, player);
+
+        if (depth <= 1) {
+            return depth == 1 ? possibleMoveSeq.size() : 1;
+        }
+
+        Player opponent = Robot.opponent(player);
+        long nodes = 0;
+
+        for (Vector<Move> moveSeq : possibleMoveSeq) {
+            board.makeMoveSeq(moveSeq, player);
+            nodes += legacyPerft(board, opponent, depth - 1);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    @SuppressWarnings("serial")
+    private static class PerftTask extends RecursiveTask<Long> {
+
+        private final Board board;
+        private final Player player;
+        private final int depth;
+
+        PerftTask(Board board, Player player, int depth) {
+            this.board = board;
+            this.player = player;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            if (depth <= SPLIT_DEPTH) {
+                return perft(board, player, depth);
+            }
+
+            long[] moves = new long[MoveGenerator.MAX_MOVES];
+            int moveCount = MoveGenerator.generateMoves(board, player, moves);
+            Player opponent = Robot.opponent(player);
+
+            // Every subtask gets its own copy of the board.
+            List<PerftTask> subtasks = new ArrayList<PerftTask>();
+            for (int i = 0; i < moveCount; i++) {
+                Board child = board.duplicate();
+                child.makeMove(moves[i], player);
+                subtasks.add(new PerftTask(child, opponent, depth - 1));
+            }
+
+            long nodes = 0;
+            for (PerftTask task : invokeAll(subtasks)) {
+                nodes += task.join();
+            }
+            return nodes;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package multithreadedcheckers;
+
+import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Thinking on the human's time, turned off with -Dcheckers.ponder=false.
+ * <p>
+ * While the human enters a move against the robot, the robot guesses that move with a short search,
+ * then searches its own answer to the position the guess leads to. When the human plays the guessed
+ * move, as Human reports it to humanPlayed, and the answer was searched at least as long as
+ * Robot.findBestMove would have, it is played at once. Otherwise the robot searches as usual, and
+ * finds the transposition table filled by the pondering.
+ */
+public class Ponder {
+
+    static final boolean ENABLED = !"false".equals(System.getProperty("checkers.ponder"));
+
+    // Share of Robot.MOVE_TIME spent guessing the human's move.
+    static final int GUESS_TIME = Robot.MOVE_TIME / 4;
+
+    // Runs the pondering without holding up the game.
+    private static final ExecutorService thinker = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "ponder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // The pondering going on, null when there is none. Only used by the game's thread.
+    private static Future<?> thinking;
+    private static AtomicBoolean humanMoved;
+    private static AtomicBoolean stop;
+    private static AtomicBoolean stopGuess;
+
+    // The move the human played meanwhile, packed as in PackedMove.
+    private static long humanMove;
+
+    // Results of the pondering, read once it is over.
+    private static long guess;
+    private static long answer;
+    private static boolean searchedEnough;
+
+    /**
+     * Starts pondering on board, where the human playing player is about to move.
+     */
+    static void start(Board board, Player player) {
+        if (!ENABLED) {
+            return;
+        }
+        take();
+
+        humanMove = PackedMove.NONE;
+        guess = PackedMove.NONE;
+        answer = PackedMove.NONE;
+        searchedEnough = false;
+
+        humanMoved = new AtomicBoolean();
+        stop = new AtomicBoolean();
+        stopGuess = new AtomicBoolean();
+
+        Board position = board.duplicate();
+        AtomicBoolean moved = humanMoved;
+        AtomicBoolean stopAnswer = stop;
+        AtomicBoolean stopGuessing = stopGuess;
+        thinking = thinker.submit(() -> ponder(position, player, moved, stopAnswer, stopGuessing));
+    }
+
+    /**
+     * Records the move the human just played while the robot was pondering, made of steps played
+     * from before.
+     */
+    static void humanPlayed(Vector<Move> steps, Board before) {
+        if (thinking != null) {
+            humanMove = PackedMove.fromMoveSeq(steps, before);
+        }
+    }
+
+    /**
+     * Ends the pondering, and returns the answer to the move the human just played if it was guessed
+     * and searched long enough, PackedMove.NONE otherwise.
+     */
+    static long take() {
+        if (thinking == null) {
+            return PackedMove.NONE;
+        }
+
+        humanMoved.set(true);
+        stopGuess.set(true);
+        stop.set(true);
+        try {
+            thinking.get();
+        } catch (InterruptedException e) {
+            System.out.println("Thread interrupted! " + e.toString());
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+        thinking = null;
+
+        return (searchedEnough && guess == humanMove) ? answer : PackedMove.NONE;
+    }
+
+    private static void ponder(Board board, Player player, AtomicBoolean humanMoved, AtomicBoolean stop,
+                               AtomicBoolean stopGuess) {
+        long[] moves = new long[MoveGenerator.MAX_MOVES];
+        int moveCount = MoveGenerator.generateMoves(board, player, moves);
+        if (moveCount == 0) {
+            return;
+        }
+
+        // The human is expected to play what the robot would in its place.
+        long expected = moves[0];
+        if (moveCount > 1) {
+            ScheduledFuture<?> alarm = GUESS_TIME > 0
+                    ? Robot.clock.schedule(() -> stopGuess.set(true), GUESS_TIME, TimeUnit.MILLISECONDS) : null;
+            expected = Robot.search(board, player, moves, moveCount, stopGuess);
+            if (alarm != null) {
+                alarm.cancel(false);
+            }
+        }
+        if (humanMoved.get()) {
+            return;
+        }
+
+        board.makeMove(expected, player);
+        Player robot = Robot.opponent(player);
+        moveCount = MoveGenerator.generateMoves(board, robot, moves);
+        if (moveCount < 2) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        long best = Robot.search(board, robot, moves, moveCount, stop);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // A search the human cut short is only worth as much as the time it was given.
+        guess = expected;
+        answer = best;
+        searchedEnough = !humanMoved.get() || (Robot.MOVE_TIME > 0 && elapsed >= Robot.MOVE_TIME);
+    }
+}
@@ -1,10 +1,18 @@
 package multithreadedcheckers;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Vector;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
 
 /**
  * @author apurv
@@ -12,13 +20,150 @@ import java.util.concurrent.Future;
 public class Robot {
 
     static Oracle oracle = new Oracle();
-    static int MAX_DEPTH = 6;
+
+    // Bound of every search window. Its opposite is still an int, unlike Integer.MIN_VALUE's.
+    static final int INFINITY = Integer.MAX_VALUE;
+    // Time the robot may think about a move, in milliseconds, set with -Dcheckers.movetime=MS.
+    // 0 means no limit: every move is then searched MAX_DEPTH plies deep.
+    static final int MOVE_TIME = Integer.getInteger("checkers.movetime", 1000);
+
+    // Deepest iteration of the search, set with -Dcheckers.depth=N. 5 plies when there is no time limit.
+    static int MAX_DEPTH = Math.min(Integer.getInteger("checkers.depth", MOVE_TIME > 0 ? 32 : 5), SearchContext.MAX_PLY - 1);
+
+    // Half width of the first window of an iteration around the previous one's score, set with
+    // -Dcheckers.aspiration=N. 0 searches every iteration with the full window.
+    static final int ASPIRATION_WINDOW = Integer.getInteger("checkers.aspiration", 25);
+
+    // Late move reductions, see reduction. A quiet move of a node with at least LMR_DEPTH plies left,
+    // coming after its first LMR_MOVES moves, is searched LMR_SCALE * ln(plies left) * ln(move index)
+    // plies shallower. Set with -Dcheckers.lmr=SCALE, -Dcheckers.lmr.depth=N and -Dcheckers.lmr.moves=N,
+    // -Dcheckers.lmr=0 turns them off.
+    static final double LMR_SCALE = Double.parseDouble(System.getProperty("checkers.lmr", "0.5"));
+    static final int LMR_DEPTH = Integer.getInteger("checkers.lmr.depth", 3);
+    static final int LMR_MOVES = Integer.getInteger("checkers.lmr.moves", 3);
+
+    // REDUCTION[plies left][move index], filled once from the settings above.
+    private static final int[][] REDUCTION = new int[SearchContext.MAX_PLY][MoveGenerator.MAX_MOVES];
+
+    static {
+        for (int draft = LMR_DEPTH; draft < SearchContext.MAX_PLY; draft++) {
+            for (int i = Math.max(LMR_MOVES, 1); i < MoveGenerator.MAX_MOVES; i++) {
+                // The child keeps at least the quiescence search.
+                REDUCTION[draft][i] = Math.min((int) (LMR_SCALE * Math.log(draft) * Math.log(i)), draft - 1);
+            }
+        }
+    }
+
+    // Number of search threads, set with -Dcheckers.threads=N. One per core by default.
+    static final int THREADS = Integer.getInteger("checkers.threads", Runtime.getRuntime().availableProcessors());
+
+    // Work-stealing pool running every search. It is created once and reused across turns and games.
+    static final ForkJoinPool searchPool = new ForkJoinPool(THREADS);
+
+    // Size in megabytes of the transposition table, set with -Dcheckers.hash=MB. 0 turns it off.
+    static final int HASH_MB = Integer.getInteger("checkers.hash", 16);
+
+    // With -Dcheckers.hash.offheap=true the table is kept outside of the Java heap, for sizes of several GB.
+    static final boolean HASH_OFF_HEAP = Boolean.getBoolean("checkers.hash.offheap");
+
+    // Positions already searched, shared by every search thread and kept from one turn to the next.
+    static final TranspositionTable transpositionTable = HASH_MB <= 0 ? null
+            : HASH_OFF_HEAP ? new OffHeapTranspositionTable(HASH_MB) : new TranspositionTable(HASH_MB);
+
+    // Parallel search algorithm, set with -Dcheckers.search=root_split|ybwc|lazy_smp|mtdf|mcts.
+    static SearchMode searchMode = SearchMode.valueOf(System.getProperty("checkers.search", "root_split").toUpperCase());
+
+    // Wakes up when the time of a move is over, to stop its search.
+    static final ScheduledExecutorService clock = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "search clock");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Best move sequence for player with the selected search mode, or null if player can not move.
+     * The search is given MOVE_TIME, unless the robot already found the answer while the human was
+     * thinking, see Ponder.
+     */
+    public static Vector<Move> findBestMove(Board board, Player player) {
+        // It is the robot's turn: whatever it was pondering is over.
+        long pondered = Ponder.take();
+
+        long[] moves = new long[MoveGenerator.MAX_MOVES]; // the root moves, packed as in PackedMove
+        int moveCount = MoveGenerator.generateMoves(board, player, moves);
+
+        if (moveCount == 0) {
+            return null;
+        }
+        // A forced move needs no thinking.
+        if (moveCount == 1) {
+            return PackedMove.toMoveSeq(moves[0], board, player);
+        }
+        if (pondered != PackedMove.NONE) {
+            return PackedMove.toMoveSeq(pondered, board, player);
+        }
+
+        AtomicBoolean stop = new AtomicBoolean();
+        ScheduledFuture<?> alarm = MOVE_TIME > 0 ? clock.schedule(() -> stop.set(true), MOVE_TIME, TimeUnit.MILLISECONDS) : null;
+
+        try {
+            return PackedMove.toMoveSeq(search(board, player, moves, moveCount, stop), board, player);
+        } finally {
+            if (alarm != null) {
+                alarm.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Best of the moves of player with the selected search mode, searched until stop is set or MAX_DEPTH is reached.
+     * <p>
+     * Iterative deepening: the position is searched 1, 2, 3... plies deep until MOVE_TIME runs out or
+     * MAX_DEPTH is reached, and the best move of the last iteration completed is played. Every iteration
+     * starts with the best root move of the previous one, and finds the transposition table filled by it.
+     * <p>
+     * Aspiration windows: an iteration is expected to score close to the previous one, so it is first
+     * searched with a narrow window around that score, which prunes more. When the score falls
+     * outside, it is only a bound: that side of the window is widened and the iteration searched again.
+     * In MTDF mode every iteration is searched by mtdf instead.
+     */
+    static long search(Board board, Player player, long[] moves, int moveCount, AtomicBoolean stop) {
+        // Lazy SMP deepens on every thread by itself.
+        if (searchMode == SearchMode.LAZY_SMP) {
+            return moves[LazySmp.search(board, player, moves, moveCount, stop)];
+        }
+        // Monte Carlo tree search runs its own loop on every thread as well.
+        if (searchMode == SearchMode.MCTS) {
+            return MonteCarloTreeSearch.search(board, player, moves, moveCount, stop);
+        }
+
+        int[] best = new int[1];
+        int score = 0;
+
+        for (int horizon = 1; horizon <= MAX_DEPTH; horizon++) {
+            // Both aim at the score of the previous iteration, the first one has none.
+            score = (searchMode == SearchMode.MTDF)
+                    ? mtdf(board, player, moves, moveCount, horizon, score, stop, best)
+                    : aspirate(board, player, moves, moveCount, horizon, (horizon == 1) ? 0 : ASPIRATION_WINDOW, score, stop, best);
+
+            // An iteration cut short by the clock tells nothing, the previous one is kept.
+            if (stop.get()) {
+                break;
+            }
+
+            long bestMove = moves[best[0]];
+            System.arraycopy(moves, 0, moves, 1, best[0]);
+            moves[0] = bestMove;
+        }
+
+        return moves[0];
+    }
 
     public static void makeNextWhiteMoves() {
 
         long currTime = System.nanoTime();
         // returns a vector with the best possible move
-        Vector<Move> resultantMoveSeq = threadedAlphaBeta(Game.board, Player.white, 0, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        Vector<Move> resultantMoveSeq = findBestMove(Game.board, Player.white);
         System.out.println("Time for White Turn: " + (System.nanoTime() - currTime + " ns"));
 
 
@@ -37,7 +182,7 @@ public class Robot {
 
         long currTime = System.nanoTime();
         // returns a vector with the best possible move
-        Vector<Move> resultantMoveSeq = threadedAlphaBeta(Game.board, Player.black, 0, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        Vector<Move> resultantMoveSeq = findBestMove(Game.board, Player.black);
         System.out.println("Time for Black Turn: " + (System.nanoTime() - currTime + " ns"));
 
         //Apply the move to the game board.
@@ -56,37 +201,52 @@ public class Robot {
     // we use vectors so that values from threads are added in the correct
     // order. An arraylist might save the values out of order.
     // it is a type of synchronized list
-    public static Vector<Move> threadedAlphaBeta(Board board, Player player, int depth, int alpha, int beta) {
-        Vector<Vector<Move>> moves = expandMoves(board, player); // Vector is an arraylist made for threads. It is synchronized
+    // One iteration of findBestMove: searches the root moves horizon plies deep within (alpha, beta),
+    // writes the index of the best to bestIndex[0] and returns its score.
+    public static int threadedAlphaBeta(Board board, Player player, long[] moves, int moveCount, int horizon,
+                                        int alpha, int beta, AtomicBoolean stop, int[] bestIndex) {
         Vector<Future<Integer>> moveCosts = new Vector<>(); // It saves the values calculated from the threads
-        moveCosts.setSize(moves.size()); // how many threads depends on the moves
-           
-        if (moves.size() == 0) { // if there are no moves
-            return null;
-        }
-
-        ExecutorService threadPool = Executors.newFixedThreadPool(moves.size()); // thread pool
+        moveCosts.setSize(moveCount); // one task per move, spread over the pool
+
+        // Best root score found so far, minus one so that a move tying it is still scored exactly.
+        // Every running task reads it at each node to tighten its window. All of them start from alpha.
+        AtomicInteger rootBound = new AtomicInteger(alpha);
+
+        for (int i = 0; i < moveCount; i++) {
+            // get the current possible move
+            long move = moves[i];
+
+            // Submitting the move to the search pool and saving the result. Every task walks the
+            // tree below its move on its own copy of the board.
+            Future<Integer> result = searchPool.submit(() -> {
+                Board threadBoard = board.duplicate();
+                threadBoard.makeMove(move, player);
+
+                SearchContext context = SearchContext.get();
+                context.rootPlayer = player;
+                context.rootBound = rootBound;
+                context.horizon = horizon;
+                context.stop = stop;
+                try {
+                    // The value of the move for player is the opposite of its value for the opponent.
+                    int value = -alphaBeta(context, threadBoard, opponent(player), 1, -beta, -alpha);
+
+                    rootBound.accumulateAndGet(value - 1, Math::max);
+                    return value;
+                } finally {
+                    context.rootBound = null;
+                    context.stop = null;
+                }
+            });
 
-        try {
-            for (int i = 0; i < moves.size(); i++) {
-                // get the current possible move
-                Vector<Move> move = moves.get(i);
-                
-                // Submitting a new thread and saving the result
-                Future<Integer> result = threadPool.submit(() -> alphaBeta(board, player, depth, alpha, beta, move));
-
-                // the value that was returned by result should assigned to the cost vector
-                moveCosts.set(i, result);
-            }
-        } finally {
-            threadPool.shutdown(); // shutdown the PARTYYYYYY of threads 
+            // the value that was returned by result should assigned to the cost vector
+            moveCosts.set(i, result);
         }
 
-        int maxIndex = Integer.MIN_VALUE; // the index we want to get from the vector
-        int max      = Integer.MIN_VALUE;
+        int best = -INFINITY;
 
-        for (int i = 0; i < moves.size(); i++) {
-            int cost = Integer.MIN_VALUE;
+        for (int i = 0; i < moveCount; i++) {
+            int cost = -INFINITY;
 
             try {
                 // VERY IMPORTANT. If a thread has not finished the alpha beta pruning algorithm, then we block and wait for
@@ -98,89 +258,353 @@ public class Robot {
                 e.printStackTrace();
             }
 
-            if (cost >= max) { //trying to find the best turn
-                max = cost;
-                maxIndex = i; // This is the current best move.
+            if (cost >= best) { //trying to find the best turn
+                best = cost;
+                bestIndex[0] = i; // This is the current best move.
+            }
+        }
+
+        return best; // the score of the best possible move
+
+    }
+
+    /**
+     * Runs searcher on the calling thread and on THREADS - 1 threads of the search pool, each with its id,
+     * 0 for the calling thread. Once the calling thread is done, stop is set and the others are waited for,
+     * so that they do not run into the next search. Returns the result of the calling thread.
+     */
+    static <T> T searchOnAllThreads(AtomicBoolean stop, IntFunction<T> searcher) {
+        List<Future<T>> helpers = new ArrayList<Future<T>>();
+        for (int id = 1; id < THREADS; id++) {
+            int helper = id;
+            helpers.add(searchPool.submit(() -> searcher.apply(helper)));
+        }
+
+        T result = searcher.apply(0);
+
+        stop.set(true);
+        for (Future<T> helper : helpers) {
+            try {
+                helper.get();
+            } catch (InterruptedException e) {
+                System.out.println("Thread interrupted! " + e.toString());
+            } catch (ExecutionException e) {
+                e.printStackTrace();
             }
         }
+        return result;
+    }
 
-        return moves.get(maxIndex); // returns a vector with the best possible move
+    /**
+     * One iteration of findBestMove with aspiration windows of half width delta around guess, 0 for the full
+     * window. Writes the index of the best move to bestIndex[0] and returns the score.
+     */
+    static int aspirate(Board board, Player player, long[] moves, int moveCount, int horizon, int delta, int guess,
+                        AtomicBoolean stop, int[] bestIndex) {
+        int alpha = windowBelow(guess, delta);
+        int beta = windowAbove(guess, delta);
+
+        while (true) {
+            int score = (searchMode == SearchMode.YBWC)
+                    ? YoungBrothersWait.search(board, player, moves, moveCount, horizon, alpha, beta, stop, bestIndex)
+                    : threadedAlphaBeta(board, player, moves, moveCount, horizon, alpha, beta, stop, bestIndex);
+
+            if (stop.get() || (score > alpha && score < beta)) {
+                return score;
+            }
 
+            // The window can not widen around an infinite score, which only a failed search returns, e.g.
+            // when every root task threw. Searching again would fail the same way.
+            if (score == -INFINITY || score == INFINITY) {
+                return score;
+            }
+            delta = Math.max(delta, 1) * 2;
+            int widenedAlpha = (score <= alpha) ? windowBelow(score, delta) : alpha;
+            int widenedBeta = (score >= beta) ? windowAbove(score, delta) : beta;
+            if (widenedAlpha == alpha && widenedBeta == beta) {
+                return score;
+            }
+            alpha = widenedAlpha;
+            beta = widenedBeta;
+        }
     }
 
     /**
-     * White represents the maximizing player, he/she wants to maximize the value of the board.
-     * Black is the minimizing player, he/she wants to minimize the value of the board.
+     * One iteration of findBestMove by MTD(f): the score of the root is narrowed down by zero-window
+     * searches alone, starting from guess. Each one tells whether the score is below or at least its
+     * beta, and fail-soft returns a bound beyond it, which is the next guess. The searches mostly walk
+     * the same tree again, so they live on the transposition table. Writes the index of the best move
+     * to bestIndex[0] and returns the score.
+     */
+    static int mtdf(Board board, Player player, long[] moves, int moveCount, int horizon, int guess,
+                    AtomicBoolean stop, int[] bestIndex) {
+        int lower = -INFINITY;
+        int upper = INFINITY;
+        int score = guess;
+        int[] passBest = new int[1];
+
+        while (lower < upper && !stop.get()) {
+            int beta = (score == lower) ? score + 1 : score;
+            score = threadedAlphaBeta(board, player, moves, moveCount, horizon, beta - 1, beta, stop, passBest);
+
+            if (score < beta) {
+                upper = score;
+            } else {
+                // Only a search failing high proves its move as good as the score.
+                lower = score;
+                bestIndex[0] = passBest[0];
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Ends of the aspiration window of half width delta around score, the full window when delta is 0.
+     */
+    static int windowBelow(int score, int delta) {
+        return (delta == 0) ? -INFINITY : (int) Math.max(-INFINITY, (long) score - delta);
+    }
+
+    static int windowAbove(int score, int delta) {
+        return (delta == 0) ? INFINITY : (int) Math.min(INFINITY, (long) score + delta);
+    }
+
+    /**
+     * Board value for player, the side to move: Oracle scores it for white, so black sees it negated.
+     */
+    static int evaluate(Board board, Player player) {
+        int value = oracle.evaluateBoard(board, player);
+        return (player == Player.white) ? value : -value;
+    }
+
+    /**
+     * Negamax alpha-beta with principal variation search. The value of a board is always seen by
+     * player, the side to move, so the same code serves white and black: what is good for one is the
+     * opposite for the other, and the window of a child is (-beta, -alpha).
+     * <p>
+     * alpha represents the value player is already assured of, initially -INFINITY.
+     * beta represents the value above which the opponent will not let the game come here, initially +INFINITY.
+     * <p>
+     * if(alpha>=beta) break
+     * <p>
+     * Fail-soft: the value returned may lie outside of the window. Below alpha it is an upper bound of
+     * the true value, above beta a lower bound, tighter than alpha and beta themselves.
      * <p>
-     * alpha represents the maximum value that the max player is assured of, initially -inf.
-     * beta represents the minimum value that the min player is assured of, initially +inf.
+     * Only the first move is searched with the full window. Every other one is first searched with
+     * the null window (alpha, alpha+1), which only tells whether it beats alpha and costs far less,
+     * and is searched again with the full window when it does.
      * <p>
-     * if(alpha>beta) break
+     * Late quiet moves are searched shallower first, see reduction, and only searched to the full
+     * depth when they beat alpha.
+     * <p>
+     * At the horizon the board is only evaluated once no capture is pending, see quiesce.
+     * <p>
+     * When the search runs under a YBWC split point that gets aborted, or is stopped, the value returned is meaningless.
+     * With a transposition table in the context, results are looked up and stored there.
      */
-    private static int alphaBeta(Board board, Player player, int depth, int alpha, int beta, Vector<Move> resultMoveSeq) {
+    static int alphaBeta(SearchContext context, Board board, Player player, int depth, int alpha, int beta) {
+
+        // Another brother already produced a cutoff above us, or the search was called off.
+        if(isAborted(context)){
+            return 0;
+        }
 
+        // Moves of the other root tasks may have raised the score this subtree has to beat.
+        // The window is never closed by it: the bounds a fail-soft search returns only hold for an open window.
+        if(context.rootBound != null){
+            if(player == context.rootPlayer){
+                alpha = Math.max(alpha, Math.min(context.rootBound.get(), beta - 1));
+            }else{
+                beta = Math.min(beta, Math.max(-context.rootBound.get(), alpha + 1));
+            }
+        }
+
+        if(board.CheckGameComplete()){
+            return evaluate(board, player);
+        }
+        if(depth == context.horizon){
+            return quiesce(context, board, player, depth, alpha, beta);
+        }
 
-        if(!canExploreFurther(board, player, depth)){
-            int value = oracle.evaluateBoard(board, player);
-            return value;
+        // A search at least as deep of the same position may already tell the value.
+        TranspositionTable table = context.table;
+        int draft = context.horizon - depth;
+        long key = 0;
+        int hashMove = 0;
+
+        if(table != null){
+            key = board.hashKey(player);
+            long entry = table.probe(key);
+            hashMove = TranspositionTable.move(entry);
+
+            if(entry != 0 && TranspositionTable.draft(entry) >= draft){
+                int score = TranspositionTable.score(entry);
+                int bound = TranspositionTable.bound(entry);
+
+                if(bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)){
+                    return score;
+                }
+            }
         }
 
-        Vector<Vector<Move>> possibleMoveSeq = expandMoves(board, player);
-        Vector<Board> possibleBoardConf = getPossibleBoardConf(board, possibleMoveSeq, player);
+        // The moves of this ply go to the buffer reserved for it, so nothing is allocated.
+        long[] moves = context.moves[depth];
+        int moveCount = MoveGenerator.generateMoves(board, player, moves);
 
-        Vector<Move> bestMoveSeq = null;
+        // No move left: the game is drawn. The same list tells it and gets searched below.
+        if(moveCount == 0){
+            return evaluate(board, player);
+        }
 
-        if(player == Player.white){
+        // The moves most likely to cut the search short go first.
+        MoveOrdering.order(context, player, moves, moveCount, depth, hashMove);
 
-            for(int i=0; i<possibleBoardConf.size(); i++){
+        Player opponent = opponent(player);
+        int alphaOrig = alpha;
+        int best = -INFINITY;
+        long bestMove = 0;
 
-                Board b = possibleBoardConf.get(i);
-                Vector<Move> moveSeq = possibleMoveSeq.get(i);
+        for(int i=0; i<moveCount; i++){
 
-                int value = alphaBeta(b, Player.black, depth+1, alpha, beta, resultMoveSeq);
+            // Walk down the tree on the same board and take the move back afterwards.
+            board.makeMove(moves[i], player);
 
-                if(value > alpha){
-                    alpha = value;
-                    bestMoveSeq = moveSeq;
+            int value;
+            if(i == 0){
+                value = -alphaBeta(context, board, opponent, depth+1, -beta, -alpha);
+            }else{
+                // A late quiet move is first searched shallower, by bringing the horizon of its subtree closer.
+                int reduction = reduction(draft, i, moves[i]);
+
+                context.horizon -= reduction;
+                value = -alphaBeta(context, board, opponent, depth+1, -alpha-1, -alpha);
+                context.horizon += reduction;
+
+                // It seems to beat alpha: the reduced search can not be trusted, search it to the full depth.
+                if(reduction > 0 && value > alpha){
+                    value = -alphaBeta(context, board, opponent, depth+1, -alpha-1, -alpha);
                 }
-                if(alpha>beta){
-                    break;
+
+                // It beats alpha: find out by how much.
+                if(value > alpha && value < beta){
+                    value = -alphaBeta(context, board, opponent, depth+1, -beta, -alpha);
+                }
+            }
+            board.unmakeMove();
+
+            // The root bound may have risen while the move was searched, and the subtree may have failed
+            // against it. The window is tightened to it before the value is used, and alphaOrig follows, so
+            // that the next moves get it and the bound stored below holds for what was searched.
+            if(context.rootBound != null){
+                if(player == context.rootPlayer){
+                    int bound = Math.min(context.rootBound.get(), beta - 1);
+                    alpha = Math.max(alpha, bound);
+                    alphaOrig = Math.max(alphaOrig, bound);
+                }else{
+                    beta = Math.min(beta, Math.max(-context.rootBound.get(), alpha + 1));
                 }
             }
 
-            //If the depth is 0, copy the bestMoveSeq in the result move seq.
-            if(depth == 0 && bestMoveSeq!=null){
-                resultMoveSeq.addAll(bestMoveSeq);
+            if(value > best){
+                best = value;
+                if(value > alpha){
+                    alpha = value;
+                    bestMove = moves[i];
+                }
+            }
+            if(alpha>=beta){
+                MoveOrdering.cutoff(context, player, moves[i], depth, draft);
+                break;
             }
+        }
 
-            return alpha;
+        if(table != null){
+            int bound = best <= alphaOrig ? TranspositionTable.UPPER
+                    : best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+            store(context, key, best, draft, bound, bestMove, alphaOrig, beta);
+        }
+        return best;
+    }
 
-        }else{
-            assert(player == Player.black);
+    /**
+     * Plies by which move, the index-th one of a node with draft plies left, is searched shallower.
+     * Captures and promotions change the material and are always searched to the full depth.
+     */
+    static int reduction(int draft, int index, long move) {
+        if(PackedMove.isCapture(move) || PackedMove.isPromotion(move)){
+            return 0;
+        }
+        return REDUCTION[draft][index];
+    }
 
-            for(int i=0; i<possibleBoardConf.size(); i++){
+    /**
+     * Search past the horizon, which only follows captures. A board with a capture pending is not
+     * evaluated: the capture is forced and the score would swing by a piece one ply later. Since the
+     * player may not decline it either, there is no standing pat, every capture is searched until the
+     * board is quiet or the ply buffers of the context run out.
+     */
+    static int quiesce(SearchContext context, Board board, Player player, int depth, int alpha, int beta) {
 
-                Board b = possibleBoardConf.get(i);
-                Vector<Move> moveSeq = possibleMoveSeq.get(i);
+        if(isAborted(context)){
+            return 0;
+        }
+        if(board.CheckGameComplete() || depth == SearchContext.MAX_PLY - 1 || !MoveGenerator.hasCapture(board, player)){
+            return evaluate(board, player);
+        }
 
-                int value = alphaBeta(b, Player.white, depth+1, alpha, beta, resultMoveSeq);
-                if(value < beta){
-                    bestMoveSeq = moveSeq;
-                    beta = value;
-                }
-                if(alpha>beta){
-                    break;
-                }
+        long[] moves = context.moves[depth];
+        int moveCount = MoveGenerator.generateMoves(board, player, moves);
+        MoveOrdering.order(context, player, moves, moveCount, depth, 0);
+
+        Player opponent = opponent(player);
+        int best = -INFINITY;
+
+        for(int i=0; i<moveCount; i++){
+            board.makeMove(moves[i], player);
+            int value = -quiesce(context, board, opponent, depth+1, -beta, -alpha);
+            board.unmakeMove();
+
+            if(value > best){
+                best = value;
+                alpha = Math.max(alpha, value);
             }
-            //If the depth is 0, copy the bestMoveSeq in the result move seq.
-            if(depth == 0 && bestMoveSeq!=null){
-                resultMoveSeq.addAll(bestMoveSeq);
+            if(alpha>=beta){
+                break;
             }
+        }
+        return best;
+    }
 
-            return beta;
+    /**
+     * Records the result of a node in the transposition table, unless it can not be trusted:
+     * the search was aborted on the way, or the window was already empty on entry.
+     */
+    private static void store(SearchContext context, long key, int score, int draft, int bound, long bestMove,
+                              int alphaOrig, int beta) {
+        if(alphaOrig < beta && !isAborted(context)){
+            context.table.store(key, score, draft, bound, bestMove);
         }
     }
 
+    private static boolean isAborted(SearchContext context) {
+        return (context.splitPoint != null && context.splitPoint.isAborted())
+                || (context.stop != null && context.stop.get());
+    }
+
+    static Player opponent(Player player) {
+        return (player == Player.white) ? Player.black : Player.white;
+    }
+
+    /**
+     * Counts the positions reachable from board in depth plies, with a breakdown per move
+     * and the nodes per second. mode is serial, parallel or legacy, see Perft.
+     */
+    public static long perft(Board board, Player player, int depth, String mode) {
+        return Perft.divide(board, player, depth, mode);
+    }
+
     public static Vector<Vector<Move>> expandMoves(Board board, Player player) {
 
         Vector<Vector<Move>> outerVector = new Vector<Vector<Move>>();
@@ -208,9 +632,9 @@ public class Robot {
 
                     innerVector.add(m);
 
-                    Board boardCopy = board.duplicate();
-                    boardCopy.genericMakeBlackMove(m);
-                    expandMoveRecursivelyForBlack(boardCopy, outerVector, innerVector, r, c);
+                    board.makeMove(m, Player.black);
+                    expandMoveRecursivelyForBlack(board, outerVector, innerVector, r, c);
+                    board.unmakeMove();
 
                     innerVector.remove(m);
 
@@ -238,9 +662,9 @@ public class Robot {
 
                     innerVector.add(m);
 
-                    Board boardCopy = board.duplicate();
-                    boardCopy.genericMakeWhiteMove(m);
-                    expandMoveRecursivelyForWhite(boardCopy, outerVector, innerVector, r, c);
+                    board.makeMove(m, Player.white);
+                    expandMoveRecursivelyForWhite(board, outerVector, innerVector, r, c);
+                    board.unmakeMove();
 
                     innerVector.remove(m);
 
@@ -263,13 +687,14 @@ public class Robot {
         } else {
             for (Move m : forcedMoves) {
 
-                Board boardCopy = board.duplicate();
-                boardCopy.genericMakeWhiteMove(m);
+                board.makeMove(m, Player.white);
 
                 innerVector.add(m);
-                expandMoveRecursivelyForWhite(boardCopy, outerVector, innerVector, m.finalRow, m.finalCol);
+                expandMoveRecursivelyForWhite(board, outerVector, innerVector, m.finalRow, m.finalCol);
                 innerVector.remove(m);
 
+                board.unmakeMove();
+
             }
         }
 
@@ -288,27 +713,16 @@ public class Robot {
         } else {
             for (Move m : forcedMoves) {
 
-                Board boardCopy = board.duplicate();
-                boardCopy.genericMakeBlackMove(m);
+                board.makeMove(m, Player.black);
 
                 innerVector.add(m);
-                expandMoveRecursivelyForBlack(boardCopy, outerVector, innerVector, m.finalRow, m.finalCol);
+                expandMoveRecursivelyForBlack(board, outerVector, innerVector, m.finalRow, m.finalCol);
                 innerVector.remove(m);
 
-            }
-        }
-    }
+                board.unmakeMove();
 
-
-    private static boolean canExploreFurther(Board board, Player player, int depth) {
-        boolean res = true;
-        if (board.CheckGameComplete() || board.CheckGameDraw(player)) {
-            res = false;
-        }
-        if (depth == MAX_DEPTH) {
-            res = false;
+            }
         }
-        return res;
     }
 
 
@@ -425,9 +839,7 @@ public class Robot {
         board.whitePieces = 7;
         board.blackPieces = 7;
 
-        Vector<Move> resultantMoveSeq = new Vector<Move>();
-//
-        alphaBeta(board, Player.black, 0, Integer.MIN_VALUE, Integer.MAX_VALUE, resultantMoveSeq);
+        Vector<Move> resultantMoveSeq = findBestMove(board, Player.black);
         board.Display();
         displayMovesInVector(resultantMoveSeq);
 
@@ -454,9 +866,7 @@ public class Robot {
         Board newBoard = board.duplicate();
         System.out.println(newBoard.CheckGameComplete());
 
-        Vector<Move> resultantMoveSeq = new Vector<Move>();
-//
-        alphaBeta(board, Player.black, 0, Integer.MIN_VALUE, Integer.MAX_VALUE, resultantMoveSeq);
+        Vector<Move> resultantMoveSeq = findBestMove(board, Player.black);
         board.Display();
         displayMovesInVector(resultantMoveSeq);
 
@@ -465,9 +875,7 @@ public class Robot {
             board.genericMakeWhiteMove(m);
         }
 
-        resultantMoveSeq.clear();
-
-        alphaBeta(board, Player.white, 0, Integer.MIN_VALUE, Integer.MAX_VALUE, resultantMoveSeq);
+        resultantMoveSeq = findBestMove(board, Player.white);
         board.Display();
         displayMovesInVector(resultantMoveSeq);
     }
@@ -489,7 +897,7 @@ public class Robot {
         board.blackPieces = 6;
 
         long currTime = System.currentTimeMillis();
-        Vector<Move> resultantMoveSeq = threadedAlphaBeta(board, Player.black, 0, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        Vector<Move> resultantMoveSeq = findBestMove(board, Player.black);
         System.out.println("Time for test case: " + (System.currentTimeMillis() - currTime) + " ms");
         board.Display();
         displayMovesInVector(resultantMoveSeq);
@@ -0,0 +1,46 @@
+package multithreadedcheckers;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scratch memory of one search thread.
+ * <p>
+ * It is kept per thread and reused from one search to the next, so that
+ * walking the tree does not allocate anything once it is warmed up.
+ */
+public class SearchContext {
+
+    static final int MAX_PLY = 64;
+
+    // moves[ply] receives the moves generated at that ply, see MoveGenerator.
+    final long[][] moves = new long[MAX_PLY][MoveGenerator.MAX_MOVES];
+
+    // Two killer moves per ply, see MoveOrdering.
+    final long[][] killers = new long[MAX_PLY][2];
+
+    // Cutoffs caused by the quiet moves of each player, by from and to squares, see MoveOrdering.
+    final int[][] history = new int[2][1 << 10];
+
+    // Ply at which the search running on this thread stops and evaluates the board.
+    int horizon = Robot.MAX_DEPTH;
+
+    // Split point the serial search is running under in YBWC mode, null otherwise.
+    YoungBrothersWait.SplitPoint splitPoint;
+
+    // Best root score shared by the root tasks of threadedAlphaBeta, null otherwise.
+    AtomicInteger rootBound;
+    Player rootPlayer;
+
+    // Transposition table the search uses, null for none.
+    TranspositionTable table = Robot.transpositionTable;
+
+    // Set when the search this thread is running has been called off, null if it can not be.
+    AtomicBoolean stop;
+
+    private static final ThreadLocal<SearchContext> perThread = ThreadLocal.withInitial(SearchContext::new);
+
+    public static SearchContext get() {
+        return perThread.get();
+    }
+}
@@ -0,0 +1,119 @@
+package multithreadedcheckers;
+
+/**
+ * Fixed size hash table of searched positions, shared by all the search threads without locks.
+ * <p>
+ * Every entry is two longs: the Zobrist key XORed with the data, then the data. A reader only
+ * accepts an entry whose two halves XOR back to its key, so an entry torn by two threads writing
+ * it at the same time reads as a miss instead of as another position's result.
+ * <p>
+ * The data packs the score (bits 0-31), the draft, i.e. the plies searched below the position
+ * (bits 32-39), the bound (bits 40-41) and the from and to squares of the best move as in
+ * PackedMove (bits 42-51). The bound is never 0, so neither is a stored entry.
+ */
+public class TranspositionTable {
+
+    // Kind of score stored.
+    static final int LOWER = 1;     // the position is worth at least the score
+    static final int UPPER = 2;     // the position is worth at most the score
+    static final int EXACT = 3;
+
+    static final int ENTRY_BYTES = 16;
+
+    // Entries of the largest heap table: their 2^30 slots are as many as a long[] can hold, rounded
+    // down to a power of two.
+    private static final long MAX_HEAP_ENTRIES = 1L << 29;
+
+    private final long[] slots;
+    private final long mask;
+
+    /**
+     * Table on the Java heap, of the largest power of two number of entries fitting in megabytes.
+     * Larger tables than MAX_HEAP_ENTRIES have to be kept off the heap.
+     */
+    public TranspositionTable(int megabytes) {
+        long entries = entriesFor(megabytes);
+        if (entries > MAX_HEAP_ENTRIES) {
+            throw new IllegalArgumentException("A transposition table of " + megabytes + " MB does not fit in a Java array,"
+                    + " the largest one is " + (MAX_HEAP_ENTRIES * ENTRY_BYTES >> 20) + " MB."
+                    + " Run with -Dcheckers.hash.offheap=true to keep it outside of the Java heap.");
+        }
+
+        this.slots = new long[(int) (2 * entries)];
+        this.mask = entries - 1;
+    }
+
+    /**
+     * Table of the given power of two number of entries, whose storage is provided by a subclass
+     * overriding readSlot and writeSlot.
+     */
+    protected TranspositionTable(long entries) {
+        assert (Long.bitCount(entries) == 1);
+
+        this.slots = null;
+        this.mask = entries - 1;
+    }
+
+    static long entriesFor(int megabytes) {
+        return Long.highestOneBit(Math.max(megabytes, 1) * (1024L * 1024 / ENTRY_BYTES));
+    }
+
+    /**
+     * Slot number index of the table, each entry taking two slots.
+     */
+    protected long readSlot(long index) {
+        return slots[(int) index];
+    }
+
+    protected void writeSlot(long index, long value) {
+        slots[(int) index] = value;
+    }
+
+    /**
+     * The data stored for key, or 0 if the table does not hold that position.
+     */
+    public long probe(long key) {
+        long index = (key & mask) << 1;
+
+        long check = readSlot(index);
+        long data = readSlot(index + 1);
+        return (check ^ data) == key ? data : 0;
+    }
+
+    /**
+     * Stores the result of a search of draft plies, replacing whatever the slot held.
+     * move is a PackedMove, of which only the squares are kept; 0 when there is no best move.
+     */
+    public void store(long key, int score, int draft, int bound, long move) {
+        assert (bound >= LOWER && bound <= EXACT);
+        assert (draft >= 0 && draft < 256);
+
+        long data = (score & 0xFFFFFFFFL)
+                | ((long) draft << 32)
+                | ((long) bound << 40)
+                | ((move & 0x3FF) << 42);
+
+        long index = (key & mask) << 1;
+        writeSlot(index, key ^ data);
+        writeSlot(index + 1, data);
+    }
+
+    static int score(long data) {
+        return (int) data;
+    }
+
+    static int draft(long data) {
+        return (int) (data >>> 32) & 0xFF;
+    }
+
+    static int bound(long data) {
+        return (int) (data >>> 40) & 3;
+    }
+
+    /**
+     * From and to squares of the best move, to compare with the low 10 bits of a PackedMove.
+     */
+    static int move(long data) {
+        return (int) (data >>> 42) & 0x3FF;
+    }
+}
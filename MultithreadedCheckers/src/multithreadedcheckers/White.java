@@ -38,22 +38,7 @@ public class White
     public static Vector<Move> ObtainForcedMovesForWhite(int r, int c, Board board) 
     {        
         Vector<Move> furtherCaptures = new Vector<Move>();        
-        
-        if (board.cell[r][c].equals(CellEntry.white) || board.cell[r][c].equals(CellEntry.whiteKing))                
-        {
-            if (ForwardLeftCaptureForWhite(r,c,board)!=null)
-                furtherCaptures.add(ForwardLeftCaptureForWhite(r,c,board));
-            if (ForwardRightCaptureForWhite(r,c,board)!=null)
-                furtherCaptures.add(ForwardRightCaptureForWhite(r,c,board));
-        }        
-        
-        if(board.cell[r][c].equals(CellEntry.whiteKing))
-        {
-            if (BackwardLeftCaptureForWhite(r,c,board)!=null)
-                furtherCaptures.add(BackwardLeftCaptureForWhite(r,c,board));
-            if (BackwardRightCaptureForWhite(r,c,board)!=null)
-                furtherCaptures.add(BackwardRightCaptureForWhite(r,c,board));
-        }
+        AddCapturesForWhite(r, c, board, furtherCaptures);
         
         return furtherCaptures;
     }
@@ -62,58 +47,45 @@ public class White
     {        
         Vector<Move> forcedMovesForWhite = new Vector<Move>();
         
-        // Scan across the board
-        for(int r = 0; r<Board.rows; r++)
-        {            
-            // Check only valid cols
-            int c = (r%2==0)?0:1;
-            for(; c<Board.cols; c+=2)
-            {       
-                assert(!board.cell[r][c].equals(CellEntry.inValid));
-                
-                // Forward Capture
-                if(
-                        board.cell[r][c].equals(CellEntry.white) || 
-                        board.cell[r][c].equals(CellEntry.whiteKing)
-                  )
-                {       
-                    // Boundary Condition for forward capture
-                    if (r<Board.rows-2)
-                    {    
-                        // Forward Left Capture
-                        if (ForwardLeftCaptureForWhite(r,c, board)!=null)
-                            forcedMovesForWhite.add(ForwardLeftCaptureForWhite(r,c, board));                        
-                        
-                        // Forward Right Capture
-                        if (ForwardRightCaptureForWhite(r,c, board)!=null)
-                            forcedMovesForWhite.add(ForwardRightCaptureForWhite(r,c, board));
-                    }                   
-                }
-                // Backward Capture
-                if(board.cell[r][c].equals(CellEntry.whiteKing))
-                {
-                    // Boundary Condition for backward capture
-                    if (r>=2)
-                    {          
-                        // Backward Left Capture
-                        if (BackwardLeftCaptureForWhite(r,c,board)!=null)
-                            forcedMovesForWhite.add(BackwardLeftCaptureForWhite(r,c, board));
-                        
-                        // Backward Right Capture
-                        if (BackwardRightCaptureForWhite(r,c,board)!=null)
-                            forcedMovesForWhite.add(BackwardRightCaptureForWhite(r,c,board));                        
-                    }
-                }
-            }    
+        // Scan only the squares holding a white piece
+        int pieces = board.white;
+        while(pieces != 0)
+        {
+            int square = Integer.numberOfTrailingZeros(pieces);
+            pieces &= pieces-1;
+            
+            AddCapturesForWhite(Board.row(square), Board.col(square), board, forcedMovesForWhite);
         }
         
         return forcedMovesForWhite;
-    }    
-
-    
+    }
     
+    // Adds the captures available to the white piece at (r, c), if any.
+    private static void AddCapturesForWhite(int r, int c, Board board, Vector<Move> captures)
+    {
+        int bit = 1 << Board.square(r, c);
+        if ((board.white & bit) == 0)
+            return;
+        
+        Move move;
+        
+        // Forward Capture
+        if ((move = ForwardLeftCaptureForWhite(r,c,board))!=null)
+            captures.add(move);
+        if ((move = ForwardRightCaptureForWhite(r,c,board))!=null)
+            captures.add(move);
+        
+        // Backward Capture for White King
+        if ((board.kings & bit) != 0)
+        {
+            if ((move = BackwardLeftCaptureForWhite(r,c,board))!=null)
+                captures.add(move);
+            if ((move = BackwardRightCaptureForWhite(r,c,board))!=null)
+                captures.add(move);
+        }
+    }
     
-        /**
+    /**
      * Returns a vector of all possible moves which White can make at the state of the game given by board.
      * 
      * Should only be called if no forced moves exist.
@@ -125,198 +97,133 @@ public class White
         
         Vector<Move> allNonForcedMovesForWhite = new Vector<Move>();
         
-        // Scan across the board
-        for(int r = 0; r<Board.rows; r++)
+        // Scan only the squares holding a white piece
+        int pieces = board.white;
+        while(pieces != 0)
         {
-            // Check only valid cols
-            int c = (r%2==0)?0:1;
-            for(; c<Board.cols; c+=2)
-            {      
-                assert(!board.cell[r][c].equals(CellEntry.inValid));
-                
-                // Forward Move for normal white piece.
-                if( board.cell[r][c].equals(CellEntry.white) ){
+            int square = Integer.numberOfTrailingZeros(pieces);
+            pieces &= pieces-1;
+            
+            int r = Board.row(square);
+            int c = Board.col(square);
+            boolean king = (board.kings & (1<<square)) != 0;
+            
+            // Forward Move for normal white piece.
+            if( !king ){
 
-                    Move move = null;
-                    move = ForwardLeftCaptureForWhite(r, c, board);
-                    assert(move == null);                    
-                    move = ForwardRightCaptureForWhite(r, c, board);
-                    assert(move == null);
-                    
-                    move = ForwardLeftForWhite(r, c, board);
-                    if(move!=null){
-                        allNonForcedMovesForWhite.add(move);   
-                    }
-                    
-                    move = ForwardRightForWhite(r, c, board);
-                    if(move!=null){
-                        allNonForcedMovesForWhite.add(move);
-                    }
+                Move move = null;
+                move = ForwardLeftCaptureForWhite(r, c, board);
+                assert(move == null);                    
+                move = ForwardRightCaptureForWhite(r, c, board);
+                assert(move == null);
+                
+                move = ForwardLeftForWhite(r, c, board);
+                if(move!=null){
+                    allNonForcedMovesForWhite.add(move);   
                 }
                 
-                                //Forward and Backward Move for black king piece.
-                if(board.cell[r][c] == CellEntry.whiteKing){                
-                    Move move = null;
-                    move = ForwardLeftCaptureForWhite(r, c, board);
-                    assert(move == null);                    
-                    move = ForwardRightCaptureForWhite(r, c, board);
-                    assert(move == null);
+                move = ForwardRightForWhite(r, c, board);
+                if(move!=null){
+                    allNonForcedMovesForWhite.add(move);
+                }
+            }
+            
+                            //Forward and Backward Move for black king piece.
+            if(king){                
+                Move move = null;
+                move = ForwardLeftCaptureForWhite(r, c, board);
+                assert(move == null);                    
+                move = ForwardRightCaptureForWhite(r, c, board);
+                assert(move == null);
 
-                    move = BackwardLeftCaptureForWhite(r, c, board);
-                    assert(move == null);
-                    move = BackwardRightCaptureForWhite(r, c, board);
-                    assert(move == null);
-                    
-                    move = ForwardLeftForWhite(r, c, board);
-                    if(move!=null){
-                        allNonForcedMovesForWhite.add(move);
-                    }
-                    
-                    move = ForwardRightForWhite(r, c, board);
-                    if(move!=null){
-                        allNonForcedMovesForWhite.add(move);
-                    }
-                    
-                    move = BackwardLeftForWhite(r, c, board);
-                    if(move!=null){
-                        allNonForcedMovesForWhite.add(move);
-                    }
-                    
-                    move = BackwardRightForWhite(r, c, board);
-                    if(move!=null){
-                        allNonForcedMovesForWhite.add(move);
-                    }
-                    
+                move = BackwardLeftCaptureForWhite(r, c, board);
+                assert(move == null);
+                move = BackwardRightCaptureForWhite(r, c, board);
+                assert(move == null);
+                
+                move = ForwardLeftForWhite(r, c, board);
+                if(move!=null){
+                    allNonForcedMovesForWhite.add(move);
+                }
+                
+                move = ForwardRightForWhite(r, c, board);
+                if(move!=null){
+                    allNonForcedMovesForWhite.add(move);
+                }
+                
+                move = BackwardLeftForWhite(r, c, board);
+                if(move!=null){
+                    allNonForcedMovesForWhite.add(move);
+                }
+                
+                move = BackwardRightForWhite(r, c, board);
+                if(move!=null){
+                    allNonForcedMovesForWhite.add(move);
                 }
+                
+            }
 
 
-            } 
         }
         
         return allNonForcedMovesForWhite;
     }
 
-    
-    
     private static Move ForwardLeftForWhite(int r, int c, Board board){
-        Move forwardLeft = null;
-        if( r<Board.rows-1 && c>=1 &&
-                board.cell[r+1][c-1] == CellEntry.empty
-          )
-        {
-            forwardLeft = new Move(r,c, r+1, c-1);
-        }
-        return forwardLeft;
+        return StepForWhite(r, c, Board.UP_LEFT, board);
     }
     
     // Forward Left Capture for White
-    private static Move ForwardLeftCaptureForWhite(int r, int c, Board board)
-    {        
-        Move forwardLeftCapture = null;
-        
-        if(r<Board.rows-2 && c>=2 &&
-                (
-                board.cell[r+1][c-1].equals(CellEntry.black)
-                || board.cell[r+1][c-1].equals(CellEntry.blackKing)
-                )
-                && board.cell[r+2][c-2].equals(CellEntry.empty)
-                )
-        {
-             forwardLeftCapture = new Move(r,c,r+2,c-2);
-             //System.out.println("Forward Left Capture");
-        }        
-        
-        return forwardLeftCapture;
+    private static Move ForwardLeftCaptureForWhite(int r, int c, Board board){
+        return CaptureForWhite(r, c, Board.UP_LEFT, board);
     }
     
     private static Move ForwardRightForWhite(int r, int c, Board board){
-        Move forwardRight = null;
-        if(r<Board.rows-1 && c<Board.cols-1 &&
-                board.cell[r+1][c+1] == CellEntry.empty
-          )
-        {
-            forwardRight = new Move(r,c, r+1, c+1);
-        }
-        return forwardRight;
+        return StepForWhite(r, c, Board.UP_RIGHT, board);
     }
     
     // Forward Right Capture for White
-    private static Move ForwardRightCaptureForWhite(int r, int c, Board board)
-    {        
-        Move forwardRightCapture = null;
-        
-        if(r<Board.rows-2 && c<Board.cols-2 &&
-                (
-                board.cell[r+1][c+1].equals(CellEntry.black)
-                || board.cell[r+1][c+1].equals(CellEntry.blackKing)
-                )
-                && board.cell[r+2][c+2].equals(CellEntry.empty)
-                )
-        {
-            forwardRightCapture = new Move(r,c,r+2,c+2);
-            //System.out.println("Forward Right Capture");
-        }
-        
-        return forwardRightCapture;
+    private static Move ForwardRightCaptureForWhite(int r, int c, Board board){
+        return CaptureForWhite(r, c, Board.UP_RIGHT, board);
     }
     
     private static Move BackwardLeftForWhite(int r, int c, Board board){
-        Move backwardLeft = null;
-        if( r>=1 && c>=1 &&
-                board.cell[r-1][c-1] == CellEntry.empty
-          )
-        {
-            backwardLeft = new Move(r,c, r-1, c-1);
-        }
-        return backwardLeft;
+        return StepForWhite(r, c, Board.DOWN_LEFT, board);
     }
     
-     // Backward Left Capture for White
-    private static Move BackwardLeftCaptureForWhite(int r, int c, Board board)
-    {
-        
-        Move backwardLeftCapture = null;
-        
-        if(r>=2 && c>=2 && (
-                board.cell[r-1][c-1].equals(CellEntry.black)
-                || board.cell[r-1][c-1].equals(CellEntry.blackKing)
-                )
-                && board.cell[r-2][c-2].equals(CellEntry.empty)
-                )
-        {
-             backwardLeftCapture = new Move(r,c,r-2,c-2);
-             //System.out.println("Backward Left Capture");
-        }
-        
-        return backwardLeftCapture;
+    // Backward Left Capture for White
+    private static Move BackwardLeftCaptureForWhite(int r, int c, Board board){
+        return CaptureForWhite(r, c, Board.DOWN_LEFT, board);
     }
     
     private static Move BackwardRightForWhite(int r, int c, Board board){
-        Move backwardRight = null;
-        if(r>=1 && c<Board.cols-1 &&
-                board.cell[r-1][c+1] == CellEntry.empty
-          )
-        {
-            backwardRight = new Move(r,c,r-1,c+1);
-        }
-        return backwardRight;
+        return StepForWhite(r, c, Board.DOWN_RIGHT, board);
     }
+    
     // Backward Right Capture for White
-    private static Move BackwardRightCaptureForWhite(int r, int c, Board board)
-    {        
-        Move backwardRightCapture = null;
+    private static Move BackwardRightCaptureForWhite(int r, int c, Board board){
+        return CaptureForWhite(r, c, Board.DOWN_RIGHT, board);
+    }
+    
+    // Unit step from (r, c) in direction dir, null if the target is off the board or occupied.
+    private static Move StepForWhite(int r, int c, int dir, Board board){
+        int to = Board.neighbour[dir][Board.square(r, c)];
         
-        if(r>=2 && c<Board.cols-2 && (
-                board.cell[r-1][c+1].equals(CellEntry.black) ||
-                board.cell[r-1][c+1].equals(CellEntry.blackKing)
-                )
-                && board.cell[r-2][c+2].equals(CellEntry.empty)
-                )
-        {
-            backwardRightCapture = new Move(r,c,r-2,c+2);
-            //System.out.println("Backward Right Capture");
+        if(to < 0 || (board.emptySquares() & (1<<to)) == 0){
+            return null;
         }
-        
-        return backwardRightCapture;
+        return new Move(r, c, Board.row(to), Board.col(to));
+    }
+    
+    // Jump from (r, c) in direction dir, null unless it goes over a black piece onto an empty square.
+    private static Move CaptureForWhite(int r, int c, int dir, Board board){
+        int from = Board.square(r, c);
+        int to = Board.jump[dir][from];
+        
+        if(to < 0 || (board.black & (1<<Board.neighbour[dir][from])) == 0
+                || (board.emptySquares() & (1<<to)) == 0){
+            return null;
+        }
+        return new Move(r, c, Board.row(to), Board.col(to));
     }
 }
\ No newline at end of file
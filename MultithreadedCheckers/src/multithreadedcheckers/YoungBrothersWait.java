@@ -0,0 +1,226 @@
+package multithreadedcheckers;
+
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Young Brothers Wait parallel alpha-beta, selected with -Dcheckers.search=ybwc.
+ * <p>
+ * At every node with enough depth left, the eldest brother (first move) is searched
+ * alone to obtain a bound. The younger brothers are then forked to the search pool with
+ * that bound, so idle workers pick them up at any depth. When a brother produces a
+ * cutoff, the brothers still running are told to stop. Late quiet brothers below the root get
+ * the reductions of Robot.reduction and a null window, and are searched again to the full depth,
+ * with the whole window, when they beat alpha.
+ * Nodes close to the leaves are searched serially by Robot.alphaBeta.
+ */
+public class YoungBrothersWait {
+
+    // Nodes with fewer plies than this left are not split.
+    static final int MIN_SPLIT_DEPTH = 3;
+
+    /**
+     * Everything searched below one split point. Aborting it stops every
+     * task of the subtree, which check their whole chain of split points.
+     */
+    static class SplitPoint {
+
+        final SplitPoint parent;
+        volatile boolean aborted;
+
+        // Stop flag of the whole search, set when its time is over. Only kept by the root split point.
+        final AtomicBoolean stop;
+
+        // Current alpha of the split node, read by the brothers when they start.
+        volatile int alpha;
+
+        SplitPoint(SplitPoint parent, int alpha) {
+            this(parent, alpha, null);
+        }
+
+        SplitPoint(SplitPoint parent, int alpha, AtomicBoolean stop) {
+            this.parent = parent;
+            this.alpha = alpha;
+            this.stop = stop;
+        }
+
+        boolean isAborted() {
+            for (SplitPoint sp = this; sp != null; sp = sp.parent) {
+                if (sp.aborted || (sp.stop != null && sp.stop.get())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * One iteration of Robot.findBestMove: searches the root moves horizon plies deep within (alpha, beta),
+     * writes the index of the best one to bestIndex[0] and returns its score. Once stop is set the result
+     * is meaningless.
+     */
+    public static int search(Board board, Player player, long[] moves, int moveCount, int horizon,
+                             int alpha, int beta, AtomicBoolean stop, int[] bestIndex) {
+        return Robot.searchPool.invoke(new Brother(board.duplicate(), player, 0, horizon, alpha, beta,
+                new SplitPoint(null, -beta, stop), moves, moveCount, bestIndex));
+    }
+
+    /**
+     * Same contract as Robot.alphaBeta, negamax included. Any value returned once splitPoint is aborted is meaningless.
+     * At the root, rootMoves holds the moves in the order to search them, and the index of the chosen
+     * one is written to bestIndex[0]. Elsewhere both are null.
+     */
+    private static int search(Board board, Player player, int depth, int horizon, int alpha, int beta,
+                              SplitPoint splitPoint, long[] rootMoves, int rootCount, int[] bestIndex) {
+
+        if (horizon - depth < MIN_SPLIT_DEPTH && bestIndex == null) {
+            SearchContext context = SearchContext.get();
+            SplitPoint savedSplitPoint = context.splitPoint;
+            int savedHorizon = context.horizon;
+
+            // The serial search below checks this split point for aborts.
+            context.splitPoint = splitPoint;
+            context.horizon = horizon;
+            try {
+                return Robot.alphaBeta(context, board, player, depth, alpha, beta);
+            } finally {
+                context.splitPoint = savedSplitPoint;
+                context.horizon = savedHorizon;
+            }
+        }
+
+        if (board.CheckGameComplete() || depth == horizon) {
+            return Robot.evaluate(board, player);
+        }
+
+        // Split nodes may interleave on one worker while joining, so they keep their own move list.
+        long[] moves = rootMoves;
+        int moveCount = rootCount;
+        if (moves == null) {
+            moves = new long[MoveGenerator.MAX_MOVES];
+            moveCount = MoveGenerator.generateMoves(board, player, moves);
+
+            // A good eldest brother gives the bound which lets the others be pruned.
+            SearchContext context = SearchContext.get();
+            int hashMove = (context.table == null) ? 0 : TranspositionTable.move(context.table.probe(board.hashKey(player)));
+            MoveOrdering.order(context, player, moves, moveCount, depth, hashMove);
+        }
+
+        if (moveCount == 0) {
+            return Robot.evaluate(board, player);
+        }
+
+        Player opponent = Robot.opponent(player);
+
+        if (bestIndex != null) {
+            bestIndex[0] = 0;
+        }
+
+        // The eldest brother is searched first, on this thread.
+        board.makeMove(moves[0], player);
+        int value = -search(board, opponent, depth + 1, horizon, -beta, -alpha, splitPoint, null, 0, null);
+        board.unmakeMove();
+
+        if (splitPoint.isAborted()) {
+            return 0;
+        }
+        if (value > alpha) {
+            alpha = value;
+        }
+        if (alpha >= beta || moveCount == 1) {
+            return alpha;
+        }
+
+        // The young brothers now go to the pool with the bound the eldest one gave.
+        SplitPoint brothersSplit = new SplitPoint(splitPoint, alpha);
+        Brother[] brothers = new Brother[moveCount - 1];
+
+        for (int i = 1; i < moveCount; i++) {
+            Board child = board.duplicate();
+            child.makeMove(moves[i], player);
+
+            // A reduced brother only has to tell whether it beats alpha, with a null window.
+            int reduction = (bestIndex == null) ? Robot.reduction(horizon - depth, i, moves[i]) : 0;
+            int brotherAlpha = (reduction > 0) ? -alpha - 1 : -beta;
+            brothers[i - 1] = new Brother(child, opponent, depth + 1, horizon - reduction, brotherAlpha, -alpha, brothersSplit, null, 0, null);
+            brothers[i - 1].fork();
+        }
+
+        for (int i = 1; i < moveCount; i++) {
+            value = -brothers[i - 1].join();
+
+            // A reduced brother which seems to beat the alpha it was searched with is searched again to
+            // the full depth, with the whole window.
+            if (brothers[i - 1].horizon < horizon && value > -brothers[i - 1].searchedBeta && !splitPoint.isAborted()) {
+                value = -search(brothers[i - 1].board, opponent, depth + 1, horizon, -beta, -alpha, brothersSplit, null, 0, null);
+            }
+
+            if (splitPoint.isAborted()) {
+                brothersSplit.aborted = true;
+                return 0;
+            }
+
+            if (value > alpha) {
+                alpha = value;
+                brothersSplit.alpha = alpha;
+                if (bestIndex != null) {
+                    bestIndex[0] = i;
+                }
+            }
+
+            // Cutoff: the remaining brothers are not needed any more.
+            if (alpha >= beta) {
+                brothersSplit.aborted = true;
+                break;
+            }
+        }
+
+        return alpha;
+    }
+
+    @SuppressWarnings("serial")
+    private static class Brother extends RecursiveTask<Integer> {
+
+        private final Board board;
+        private final Player player;
+        private final int depth;
+        private final int horizon;
+        private final int alpha;
+        private final int beta;
+        private final SplitPoint splitPoint;
+        private final long[] rootMoves;
+        private final int rootCount;
+        private final int[] bestIndex;
+
+        // Beta the brother was searched with, read once it is joined.
+        private int searchedBeta;
+
+        Brother(Board board, Player player, int depth, int horizon, int alpha, int beta, SplitPoint splitPoint,
+                long[] rootMoves, int rootCount, int[] bestIndex) {
+            this.board = board;
+            this.player = player;
+            this.depth = depth;
+            this.horizon = horizon;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.splitPoint = splitPoint;
+            this.rootMoves = rootMoves;
+            this.rootCount = rootCount;
+            this.bestIndex = bestIndex;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (splitPoint.isAborted()) {
+                return 0;
+            }
+
+            // Start from the tightest window known at the split node, whose alpha is our beta.
+            // A null window moves down with it.
+            int b = Math.min(beta, -splitPoint.alpha);
+            int a = (beta - alpha == 1) ? b - 1 : alpha;
+            searchedBeta = b;
+            return search(board, player, depth, horizon, a, b, splitPoint, rootMoves, rootCount, bestIndex);
+        }
+    }
+}